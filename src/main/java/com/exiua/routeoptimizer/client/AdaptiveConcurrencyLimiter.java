@@ -0,0 +1,106 @@
+package com.exiua.routeoptimizer.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+
+/**
+ * Límite de concurrencia adaptativo (AIMD) de las resoluciones enviadas a una instancia.
+ * Cada respuesta rápida con el límite casi ocupado lo aumenta en 1/límite (≈ +1 por ventana);
+ * un error o una latencia mayor a la tolerancia sobre la latencia de referencia lo reduce
+ * de forma multiplicativa. La duración de una resolución crece con la cantidad de POIs, así que
+ * hay una referencia por tamaño (POIs agrupados en potencias de 2): una media móvil lenta de las
+ * latencias observadas para ese tamaño.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int MAX_POI_BUCKET = 128;
+
+    private final RouteProcessingConfigurationProperties.Limiter config;
+    private double limit;
+    private int inFlight;
+    private final Map<Integer, Double> baselineLatencyMs = new HashMap<>();
+
+    public AdaptiveConcurrencyLimiter(RouteProcessingConfigurationProperties.Limiter config) {
+        this.config = config;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getInitialLimit(), config.getMaxLimit()));
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (config.isEnabled() && inFlight >= getLimit()) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Respuesta recibida: ajustar el límite según su latencia frente a la referencia de su tamaño
+     */
+    public synchronized void onSuccess(long latencyMs, int poiCount) {
+        boolean saturated = inFlight >= limit / 2;
+        inFlight--;
+        int bucket = sizeBucket(poiCount);
+        double baseline = baselineLatencyMs.getOrDefault(bucket, (double) latencyMs);
+        if (latencyMs > baseline * config.getLatencyTolerance()) {
+            decrease();
+        } else if (saturated) {
+            // Solo crece si el límite actual se está usando
+            limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+        }
+        double smoothing = config.getBaselineSmoothing();
+        baselineLatencyMs.put(bucket, smoothing * latencyMs + (1 - smoothing) * baseline);
+    }
+
+    /**
+     * Error de la instancia: reducir el límite
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        decrease();
+    }
+
+    /**
+     * Petición cancelada o rechazada por el cliente: no aporta información sobre la instancia
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return Math.max(config.getMinLimit(), (int) limit);
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Latencia de referencia para resoluciones de ese tamaño; 0 si aún no hay ninguna observada
+     */
+    public synchronized long getBaselineLatencyMs(int poiCount) {
+        return baselineLatencyMs.getOrDefault(sizeBucket(poiCount), 0.0).longValue();
+    }
+
+    /**
+     * Latencias de referencia por grupo de tamaño (límite inferior de POIs del grupo)
+     */
+    public synchronized Map<Integer, Long> getBaselineLatencies() {
+        Map<Integer, Long> baselines = new TreeMap<>();
+        baselineLatencyMs.forEach((bucket, latency) -> baselines.put(bucket, latency.longValue()));
+        return baselines;
+    }
+
+    /**
+     * Grupo de tamaño de una resolución: POIs redondeados a la potencia de 2 inferior, hasta 128
+     */
+    public static int sizeBucket(int poiCount) {
+        return Math.min(Integer.highestOneBit(Math.max(1, poiCount)), MAX_POI_BUCKET);
+    }
+
+    private void decrease() {
+        limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+    }
+}
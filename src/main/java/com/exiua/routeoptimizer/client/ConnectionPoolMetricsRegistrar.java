@@ -0,0 +1,74 @@
+package com.exiua.routeoptimizer.client;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Métricas de los pools de conexiones salientes (uno por host remoto).
+ * Reactor Netty registra cada pool al crearlo; se publican como gauges de Micrometer
+ * (optimizer.http.pool.*) y se exponen en las estadísticas del sistema.
+ */
+@Component
+public class ConnectionPoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private static final String METRIC_PREFIX = "optimizer.http.pool.";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RegisteredPool> pools = new ConcurrentHashMap<>();
+
+    public ConnectionPoolMetricsRegistrar(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", poolName, "remote", String.valueOf(remoteAddress));
+        List<Meter> meters = List.of(
+            gauge("acquired", metrics, ConnectionPoolMetrics::acquiredSize, tags),
+            gauge("pending", metrics, ConnectionPoolMetrics::pendingAcquireSize, tags),
+            gauge("idle", metrics, ConnectionPoolMetrics::idleSize, tags),
+            gauge("allocated", metrics, ConnectionPoolMetrics::allocatedSize, tags));
+        pools.put(id, new RegisteredPool(String.valueOf(remoteAddress), metrics, meters));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        RegisteredPool pool = pools.remove(id);
+        if (pool != null) {
+            pool.meters().forEach(meterRegistry::remove);
+        }
+    }
+
+    public List<PoolStats> snapshot() {
+        return pools.values().stream()
+            .map(pool -> new PoolStats(pool.remote(), pool.metrics().acquiredSize(),
+                pool.metrics().pendingAcquireSize(), pool.metrics().idleSize(),
+                pool.metrics().allocatedSize(), pool.metrics().maxAllocatedSize()))
+            .toList();
+    }
+
+    private Meter gauge(String name, ConnectionPoolMetrics metrics, ToDoubleFunction<ConnectionPoolMetrics> value, Tags tags) {
+        return Gauge.builder(METRIC_PREFIX + name, metrics, value)
+            .tags(tags)
+            .register(meterRegistry);
+    }
+
+    private record RegisteredPool(String remote, ConnectionPoolMetrics metrics, List<Meter> meters) {}
+
+    /**
+     * Estado de un pool para monitoreo
+     */
+    public record PoolStats(String remote, int acquired, int pending, int idle, int allocated, int maxAllocated) {}
+}
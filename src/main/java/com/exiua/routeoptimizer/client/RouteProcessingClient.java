@@ -0,0 +1,493 @@
+package com.exiua.routeoptimizer.client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Compression;
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Format;
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+import com.exiua.routeoptimizer.exceptions.SolverUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cliente del servicio de procesamiento de rutas con una o varias instancias.
+ * Cada resolución va a la instancia con menos peticiones en curso; si no responde antes del
+ * percentil de latencia configurado se repite en una segunda instancia (hedging). Se usa la
+ * primera respuesta y la otra petición se cancela y se notifica a su instancia.
+ * Cada instancia tiene un límite de concurrencia adaptativo y un circuit breaker; si ninguna
+ * puede aceptar la llamada se falla de inmediato con {@link SolverUnavailableException}.
+ * La codificación del cuerpo (JSON, Smile o CBOR, con gzip o zstd) la decide {@link SolvePayloadCodec};
+ * una instancia que responde 415 pasa a recibir JSON sin comprimir. La respuesta no se acumula en
+ * memoria: sus DataBuffers se escriben en un archivo temporal que luego se procesa en streaming.
+ * Con streaming habilitado se aceptan además respuestas NDJSON/SSE: los eventos de progreso y de
+ * mejor ruta parcial llegan al {@link SolveListener} y el resultado final se trata igual. En ese
+ * modo la respuesta se pide sin comprimir, porque los eventos se leen línea a línea según llegan.
+ */
+@Component
+public class RouteProcessingClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteProcessingClient.class);
+
+    private static final String PROCESS_ROUTE_PATH = "/api/v1/process-route";
+
+    private final RouteProcessingConfigurationProperties properties;
+    private final RouteProcessingConfigurationProperties.Hedging hedging;
+    private final WebClient webClient;
+    private final SolvePayloadCodec codec;
+    private final List<Endpoint> endpoints;
+    private final Path spoolDirectory;
+    private final String accept;
+    private final String acceptEncoding;
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+
+    // Ventana circular de latencias de resoluciones exitosas (ms)
+    private final long[] latencyWindow;
+    private int latencyCount;
+    private int latencyPosition;
+
+    private final AtomicLong totalRequests = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong requestRawBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    public RouteProcessingClient(RouteProcessingConfigurationProperties properties, WebClient webClient,
+                                 SolvePayloadCodec codec) {
+        this.properties = properties;
+        this.hedging = properties.getHedging();
+        this.endpoints = properties.getEndpoints().stream().map(this::newEndpoint).toList();
+        this.latencyWindow = new long[Math.max(1, hedging.getWindowSize())];
+        this.webClient = webClient;
+        this.codec = codec;
+        this.spoolDirectory = spoolDirectory(properties.getSpool());
+        this.accept = properties.getStreaming().isEnabled()
+            ? MediaType.APPLICATION_NDJSON + ", " + MediaType.TEXT_EVENT_STREAM + ";q=0.95, " + SolvePayloadCodec.ACCEPT
+            : SolvePayloadCodec.ACCEPT;
+        this.acceptEncoding = properties.getStreaming().isEnabled() ? "identity" : SolvePayloadCodec.ACCEPT_ENCODING;
+        logger.info("Servicio de procesamiento de rutas: {} instancia(s) {}, codificación {}+{}", endpoints.size(),
+            properties.getEndpoints(), codec.getDefaultFormat(), codec.getDefaultCompression());
+    }
+
+    /**
+     * Resolver una ruta. El Mono es perezoso: cada suscripción (p. ej. un reintento) elige
+     * instancia de nuevo. Cancelarlo aborta las peticiones en curso. La respuesta queda en un
+     * archivo temporal que pertenece a quien la recibe. El listener recibe los eventos de una
+     * respuesta en streaming (de cualquiera de los intentos si hay hedge).
+     */
+    public Mono<SolverResponse> solve(String jobId, Object processingRequest, int poiCount, SolveListener listener) {
+        return Mono.defer(() -> {
+            totalRequests.incrementAndGet();
+            CallPermit primary = acquire(null);
+            Mono<Attempt> primaryCall = call(primary, jobId, processingRequest, poiCount, listener)
+                .map(body -> new Attempt(body, false));
+            if (!hedging.isEnabled() || endpoints.size() < 2) {
+                return primaryCall.map(Attempt::body);
+            }
+
+            Duration delay = hedgeDelay();
+            Mono<Attempt> hedgedCall = Mono.delay(delay).then(Mono.defer(() -> {
+                // Sin otra instancia disponible no se hace hedge; decide la llamada primaria
+                CallPermit secondary = acquire(primary.endpoint);
+                hedgedRequests.incrementAndGet();
+                logger.info("Job {}: sin respuesta de {} tras {} ms, se repite en {}",
+                    jobId, primary.endpoint.url, delay.toMillis(), secondary.endpoint.url);
+                return call(secondary, jobId, processingRequest, poiCount, listener)
+                    .map(body -> new Attempt(body, true));
+            }));
+
+            return Mono.firstWithValue(primaryCall, hedgedCall)
+                .doOnNext(attempt -> {
+                    if (attempt.hedged()) {
+                        hedgeWins.incrementAndGet();
+                    }
+                })
+                .map(Attempt::body);
+        });
+    }
+
+    /**
+     * Directorio de los archivos temporales de respuesta
+     */
+    public Path getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    public HedgingStats stats() {
+        List<EndpointStats> endpointStats = endpoints.stream()
+            .map(endpoint -> new EndpointStats(endpoint.url, endpoint.outstanding.get(),
+                endpoint.requests.get(), endpoint.failures.get(), endpoint.limiter.getLimit(),
+                endpoint.limiter.getBaselineLatencies(), endpoint.breaker.getState().name(),
+                endpoint.breaker.getFailureRate(), encodingOf(endpoint)))
+            .toList();
+        return new HedgingStats(totalRequests.get(), hedgedRequests.get(), hedgeWins.get(),
+            hedgeDelay().toMillis(), requestBytes.get(), requestRawBytes.get(), responseBytes.get(), endpointStats);
+    }
+
+    /**
+     * Enviar la resolución con un permiso ya obtenido; el permiso se libera exactamente una vez
+     */
+    private Mono<SolverResponse> call(CallPermit permit, String jobId, Object processingRequest, int poiCount,
+                                      SolveListener listener) {
+        Endpoint endpoint = permit.endpoint;
+        boolean negotiated = !endpoint.plainJson && (codec.getDefaultFormat() != Format.JSON
+            || codec.getDefaultCompression() != Compression.NONE);
+        Mono<SolverResponse> exchange = negotiated
+            ? exchange(endpoint, processingRequest, codec.getDefaultFormat(), codec.getDefaultCompression(), listener)
+                .onErrorResume(RouteProcessingClient::isUnsupportedMediaType, error -> {
+                    // La instancia no entiende el formato o la compresión: JSON plano desde ahora
+                    endpoint.plainJson = true;
+                    logger.warn("{} no acepta {}+{}, se usa JSON sin comprimir", endpoint.url,
+                        codec.getDefaultFormat(), codec.getDefaultCompression());
+                    return exchange(endpoint, processingRequest, Format.JSON, Compression.NONE, listener);
+                })
+            : exchange(endpoint, processingRequest, Format.JSON, Compression.NONE, listener);
+        return exchange
+            .doOnSuccess(body -> permit.succeeded(body, poiCount))
+            .doOnError(permit::failed)
+            .doOnCancel(() -> {
+                // Petición perdedora del hedge, cancelada o vencida: liberar la instancia
+                if (permit.cancelled()) {
+                    abort(endpoint, jobId);
+                }
+            });
+    }
+
+    private Mono<SolverResponse> exchange(Endpoint endpoint, Object processingRequest, Format format,
+                                          Compression compression, SolveListener listener) {
+        return Mono.defer(() -> {
+            SolvePayloadCodec.EncodedRequest encoded = codec.encode(processingRequest, format, compression);
+            requestBytes.addAndGet(encoded.body().length);
+            requestRawBytes.addAndGet(encoded.rawSize());
+            return webClient.post()
+                .uri(endpoint.url + PROCESS_ROUTE_PATH)
+                .contentType(encoded.format().getMediaType())
+                .headers(headers -> {
+                    headers.set(HttpHeaders.ACCEPT, accept);
+                    headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+                    if (encoded.compression() != Compression.NONE) {
+                        headers.set(HttpHeaders.CONTENT_ENCODING, encoded.compression().getContentEncoding());
+                    }
+                })
+                .bodyValue(encoded.body())
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isError()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    MediaType contentType = response.headers().contentType().orElse(null);
+                    String contentEncoding = response.headers().header(HttpHeaders.CONTENT_ENCODING).stream()
+                        .findFirst().orElse(null);
+                    if (listener != null && SolverEventStream.supports(contentType)) {
+                        if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding)) {
+                            return response.releaseBody().then(Mono.error(new IllegalStateException(
+                                "Respuesta en streaming con Content-Encoding no soportado: " + contentEncoding)));
+                        }
+                        return streamEvents(response.bodyToFlux(DataBuffer.class), contentType, listener);
+                    }
+                    return spool(response.bodyToFlux(DataBuffer.class), contentType, contentEncoding);
+                });
+        });
+    }
+
+    /**
+     * Escribir el cuerpo en un archivo temporal a medida que llegan los DataBuffers; el archivo se
+     * borra si la escritura falla o se cancela, y un cuerpo vacío se trata como sin respuesta
+     */
+    private Mono<SolverResponse> spool(Flux<DataBuffer> body, MediaType contentType, String contentEncoding) {
+        Path file;
+        try {
+            file = Files.createTempFile(spoolDirectory, "solve-", ".part");
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        AtomicLong size = new AtomicLong();
+        Flux<DataBuffer> counted = body.doOnNext(buffer -> {
+            size.addAndGet(buffer.readableByteCount());
+            responseBytes.addAndGet(buffer.readableByteCount());
+        });
+        return DataBufferUtils.write(counted, file)
+            .then(Mono.fromCallable(() -> {
+                if (size.get() == 0) {
+                    Files.deleteIfExists(file);
+                    return null;
+                }
+                return new SolverResponse(file, contentType, contentEncoding, size.get(), null);
+            }))
+            .doOnError(error -> deleteQuietly(file))
+            .doOnCancel(() -> deleteQuietly(file));
+    }
+
+    /**
+     * Leer una respuesta NDJSON/SSE a medida que llega, fuera del event loop (puede escribir a disco)
+     */
+    private Mono<SolverResponse> streamEvents(Flux<DataBuffer> body, MediaType contentType, SolveListener listener) {
+        SolverEventStream stream = SolverEventStream.open(contentType, listener, codec.getJsonMapper(),
+            spoolDirectory, properties.getStreaming().getMaxEventBytes());
+        return body
+            .publishOn(Schedulers.boundedElastic())
+            .doOnNext(buffer -> {
+                responseBytes.addAndGet(buffer.readableByteCount());
+                stream.accept(buffer);
+            })
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+            .then(Mono.fromCallable(stream::complete))
+            .doOnError(error -> stream.discard())
+            .doOnCancel(stream::discard);
+    }
+
+    private static Path spoolDirectory(RouteProcessingConfigurationProperties.Spool spool) {
+        String directory = spool.getDirectory();
+        Path path = directory == null || directory.isBlank()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "route-optimizer-spool")
+            : Paths.get(directory);
+        try {
+            return Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo crear el directorio de respuestas " + path, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el archivo temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean isUnsupportedMediaType(Throwable error) {
+        return error instanceof WebClientResponseException response
+            && response.getStatusCode().isSameCodeAs(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+    private String encodingOf(Endpoint endpoint) {
+        if (endpoint.plainJson) {
+            return "json";
+        }
+        String format = codec.getDefaultFormat().name().toLowerCase();
+        return codec.getDefaultCompression() == Compression.NONE
+            ? format
+            : format + "+" + codec.getDefaultCompression().name().toLowerCase();
+    }
+
+    /**
+     * Notificación best-effort: la instancia identifica la resolución por el routeId, que es el jobId
+     */
+    private void abort(Endpoint endpoint, String jobId) {
+        webClient.delete()
+            .uri(endpoint.url + PROCESS_ROUTE_PATH + "/{jobId}", jobId)
+            .retrieve()
+            .toBodilessEntity()
+            .timeout(Duration.ofSeconds(5))
+            .subscribe(
+                response -> logger.info("Resolución del job {} abortada en {}", jobId, endpoint.url),
+                error -> logger.warn("No se pudo abortar la resolución del job {} en {}: {}",
+                    jobId, endpoint.url, error.getMessage()));
+    }
+
+    /**
+     * Obtener permiso en la instancia con menos peticiones en curso que lo conceda (límite de
+     * concurrencia y circuit breaker); los empates se reparten en round-robin
+     */
+    private CallPermit acquire(Endpoint excluded) {
+        int start = Math.floorMod(nextEndpoint.getAndIncrement(), endpoints.size());
+        List<Endpoint> candidates = new ArrayList<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint candidate = endpoints.get((start + i) % endpoints.size());
+            if (candidate != excluded) {
+                candidates.add(candidate);
+            }
+        }
+
+        boolean anyHealthy = false;
+        while (!candidates.isEmpty()) {
+            Endpoint candidate = candidates.get(0);
+            for (Endpoint other : candidates) {
+                if (other.outstanding.get() < candidate.outstanding.get()) {
+                    candidate = other;
+                }
+            }
+            candidates.remove(candidate);
+
+            if (!candidate.limiter.tryAcquire()) {
+                anyHealthy = anyHealthy || candidate.breaker.getState() != SolverCircuitBreaker.State.OPEN;
+                continue;
+            }
+            SolverCircuitBreaker.Permission permission = candidate.breaker.tryAcquire();
+            if (permission == SolverCircuitBreaker.Permission.DENIED) {
+                candidate.limiter.onIgnored();
+                continue;
+            }
+            return new CallPermit(candidate, permission);
+        }
+
+        // Con alguna instancia sana solo saturada conviene reintentar; con todas abiertas, no
+        throw new SolverUnavailableException(anyHealthy
+            ? "Servicio de procesamiento en su límite de concurrencia"
+            : "Circuit breaker abierto en todas las instancias del servicio de procesamiento", anyHealthy);
+    }
+
+    private synchronized void recordLatency(long millis) {
+        latencyWindow[latencyPosition] = millis;
+        latencyPosition = (latencyPosition + 1) % latencyWindow.length;
+        latencyCount = Math.min(latencyCount + 1, latencyWindow.length);
+    }
+
+    /**
+     * Espera antes del hedge: percentil configurado de la ventana de latencias, acotado
+     */
+    private synchronized Duration hedgeDelay() {
+        if (latencyCount < hedging.getMinSamples()) {
+            return Duration.ofMillis(hedging.getInitialDelayMs());
+        }
+        long[] samples = Arrays.copyOf(latencyWindow, latencyCount);
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(hedging.getPercentile() / 100.0 * samples.length) - 1;
+        long percentileMillis = samples[Math.max(0, Math.min(index, samples.length - 1))];
+        return Duration.ofMillis(Math.max(hedging.getMinDelayMs(), Math.min(percentileMillis, hedging.getMaxDelayMs())));
+    }
+
+    private Endpoint newEndpoint(String url) {
+        String normalized = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        return new Endpoint(normalized, new AdaptiveConcurrencyLimiter(properties.getLimiter()),
+            new SolverCircuitBreaker(properties.getCircuitBreaker(), normalized));
+    }
+
+    private record Attempt(SolverResponse body, boolean hedged) {}
+
+    private static final class Endpoint {
+        private final String url;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final SolverCircuitBreaker breaker;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        // La instancia rechazó la codificación configurada (415)
+        private volatile boolean plainJson;
+
+        private Endpoint(String url, AdaptiveConcurrencyLimiter limiter, SolverCircuitBreaker breaker) {
+            this.url = url;
+            this.limiter = limiter;
+            this.breaker = breaker;
+        }
+    }
+
+    /**
+     * Permiso de una llamada en curso: informa su resultado al limitador y al circuit breaker
+     */
+    private final class CallPermit {
+        private final Endpoint endpoint;
+        private final SolverCircuitBreaker.Permission permission;
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private CallPermit(Endpoint endpoint, SolverCircuitBreaker.Permission permission) {
+            this.endpoint = endpoint;
+            this.permission = permission;
+            endpoint.outstanding.incrementAndGet();
+            endpoint.requests.incrementAndGet();
+        }
+
+        private void succeeded(SolverResponse body, int poiCount) {
+            if (!release()) {
+                return;
+            }
+            long latencyMs = (System.nanoTime() - startedAt) / 1_000_000;
+            // Lenta respecto de lo habitual para su tamaño en esta instancia, no respecto de un valor fijo
+            long expectedMs = endpoint.limiter.getBaselineLatencyMs(poiCount);
+            endpoint.limiter.onSuccess(latencyMs, poiCount);
+            endpoint.breaker.onResult(permission, expectedMs > 0
+                && latencyMs > expectedMs * properties.getCircuitBreaker().getSlowCallLatencyFactor());
+            if (body != null) {
+                recordLatency(latencyMs);
+            }
+        }
+
+        private void failed(Throwable error) {
+            if (!release()) {
+                return;
+            }
+            endpoint.failures.incrementAndGet();
+            // Un 4xx es un problema de la solicitud, no de la salud de la instancia
+            if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                endpoint.limiter.onIgnored();
+                endpoint.breaker.onIgnored(permission);
+            } else {
+                endpoint.limiter.onDropped();
+                endpoint.breaker.onResult(permission, true);
+            }
+        }
+
+        private boolean cancelled() {
+            if (!release()) {
+                return false;
+            }
+            endpoint.limiter.onIgnored();
+            endpoint.breaker.onIgnored(permission);
+            return true;
+        }
+
+        private boolean release() {
+            if (!released.compareAndSet(false, true)) {
+                return false;
+            }
+            endpoint.outstanding.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Respuesta de una resolución escrita en disco tal como llegó (formato y compresión negociados).
+     * resultField indica el campo que contiene el resultado cuando el archivo es un evento NDJSON.
+     */
+    public record SolverResponse(Path file, MediaType contentType, String contentEncoding, long sizeBytes,
+                                 String resultField) {}
+
+    /**
+     * Eventos intermedios de una resolución en streaming; progress es el avance del solver (0-100)
+     */
+    public interface SolveListener {
+        void onProgress(int progress, String message);
+
+        void onBestSoFar(JsonNode route);
+    }
+
+    /**
+     * Estado de una instancia para monitoreo
+     */
+    public record EndpointStats(String url, int outstanding, long requests, long failures, int concurrencyLimit,
+                                Map<Integer, Long> baselineLatencyMsByPois, String circuitState, int failureRate,
+                                String encoding) {}
+
+    /**
+     * Contadores de balanceo, hedging y volumen transferido (bytes en la red y antes de comprimir)
+     */
+    public record HedgingStats(long requests, long hedgedRequests, long hedgeWins, long hedgeDelayMs,
+                               long requestBytes, long requestRawBytes, long responseBytes,
+                               List<EndpointStats> endpoints) {}
+}
@@ -0,0 +1,187 @@
+package com.exiua.routeoptimizer.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * Codificación de las solicitudes y respuestas del servicio de procesamiento.
+ * Las solicitudes se serializan en JSON, Smile o CBOR y se comprimen con gzip o zstd si superan
+ * el tamaño mínimo. Las respuestas se leen con un parser del formato recibido sobre un stream
+ * descomprimido según Content-Encoding; quien las consume las reescribe como JSON en streaming.
+ */
+@Component
+public class SolvePayloadCodec {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Formatos de respuesta aceptados, en orden de preferencia; JSON siempre queda como respaldo
+     */
+    public static final String ACCEPT = APPLICATION_SMILE + ", " + MediaType.APPLICATION_CBOR + ";q=0.9, "
+        + MediaType.APPLICATION_JSON + ";q=0.5";
+
+    public static final String ACCEPT_ENCODING = "zstd, gzip;q=0.9, identity;q=0.5";
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(APPLICATION_SMILE),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        static Format of(String value) {
+            return value == null ? JSON : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    public enum Compression {
+        NONE(null),
+        GZIP("gzip"),
+        ZSTD("zstd");
+
+        private final String contentEncoding;
+
+        Compression(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+        }
+
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        static Compression of(String value) {
+            return value == null ? NONE : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private final RouteProcessingConfigurationProperties.Encoding config;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final Format defaultFormat;
+    private final Compression defaultCompression;
+
+    public SolvePayloadCodec(RouteProcessingConfigurationProperties properties, ObjectMapper objectMapper) {
+        this.config = properties.getEncoding();
+        // Misma configuración (módulos, fechas) que el ObjectMapper de la aplicación
+        this.jsonMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.defaultFormat = Format.of(config.getFormat());
+        this.defaultCompression = Compression.of(config.getCompression());
+    }
+
+    public Format getDefaultFormat() {
+        return defaultFormat;
+    }
+
+    public Compression getDefaultCompression() {
+        return defaultCompression;
+    }
+
+    /**
+     * Serializar la solicitud; la compresión se omite por debajo del tamaño mínimo
+     */
+    public EncodedRequest encode(Object request, Format format, Compression compression) {
+        try {
+            byte[] body = mapperFor(format).writeValueAsBytes(request);
+            if (compression == Compression.NONE || body.length < config.getCompressionMinBytes()) {
+                return new EncodedRequest(body, format, Compression.NONE, body.length);
+            }
+            return new EncodedRequest(compress(body, compression), format, compression, body.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo serializar la solicitud de procesamiento", e);
+        }
+    }
+
+    /**
+     * Abrir un parser sobre el cuerpo de una respuesta según sus cabeceras Content-Type y
+     * Content-Encoding; la descompresión se hace en streaming a medida que se leen tokens
+     */
+    public JsonParser openParser(InputStream body, MediaType contentType, String contentEncoding) throws IOException {
+        return mapperFor(formatOf(contentType)).getFactory().createParser(decompress(body, contentEncoding));
+    }
+
+    public ObjectMapper getJsonMapper() {
+        return jsonMapper;
+    }
+
+    /**
+     * Fábrica JSON de la aplicación, para reescribir las respuestas binarias como JSON
+     */
+    public JsonFactory getJsonFactory() {
+        return jsonMapper.getFactory();
+    }
+
+    private byte[] compress(byte[] body, Compression compression) throws IOException {
+        if (compression == Compression.ZSTD) {
+            return Zstd.compress(body, config.getZstdLevel());
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static InputStream decompress(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || "identity".equalsIgnoreCase(contentEncoding.trim())) {
+            return body;
+        }
+        return switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 64 * 1024);
+            case "zstd" -> new ZstdInputStream(body);
+            default -> throw new IOException("Content-Encoding no soportado: " + contentEncoding);
+        };
+    }
+
+    private static Format formatOf(MediaType contentType) {
+        if (contentType == null) {
+            return Format.JSON;
+        }
+        if (APPLICATION_SMILE.isCompatibleWith(contentType)) {
+            return Format.SMILE;
+        }
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return Format.CBOR;
+        }
+        return Format.JSON;
+    }
+
+    private ObjectMapper mapperFor(Format format) {
+        return switch (format) {
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+            default -> jsonMapper;
+        };
+    }
+
+    /**
+     * Cuerpo listo para enviar; rawSize es el tamaño serializado antes de comprimir
+     */
+    public record EncodedRequest(byte[] body, Format format, Compression compression, int rawSize) {}
+}
@@ -0,0 +1,132 @@
+package com.exiua.routeoptimizer.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+
+/**
+ * Circuit breaker de una instancia del servicio de procesamiento.
+ * CLOSED: registra el resultado de las últimas llamadas (errores y llamadas lentas cuentan como
+ * fallo) y pasa a OPEN si la tasa de fallos alcanza el umbral. OPEN: rechaza las llamadas hasta
+ * que vence el tiempo de apertura. HALF_OPEN: deja pasar unas pocas llamadas de prueba; si
+ * todas tienen éxito vuelve a CLOSED y si alguna falla vuelve a OPEN.
+ */
+public class SolverCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolverCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Resultado de pedir permiso: denegado, llamada normal o llamada de prueba en HALF_OPEN
+     */
+    public enum Permission { DENIED, GRANTED, TRIAL }
+
+    private final RouteProcessingConfigurationProperties.CircuitBreaker config;
+    private final String name;
+
+    private State state = State.CLOSED;
+    // Ventana circular de resultados (true = fallo)
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomePosition;
+    private int failureCount;
+    private long openedAtMillis;
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    public SolverCircuitBreaker(RouteProcessingConfigurationProperties.CircuitBreaker config, String name) {
+        this.config = config;
+        this.name = name;
+        this.outcomes = new boolean[Math.max(1, config.getWindowSize())];
+    }
+
+    public synchronized Permission tryAcquire() {
+        if (!config.isEnabled()) {
+            return Permission.GRANTED;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < config.getOpenDurationMs()) {
+                return Permission.DENIED;
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+            logger.info("Circuit breaker de {} en HALF_OPEN, probando la instancia", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight >= config.getHalfOpenCalls()) {
+                return Permission.DENIED;
+            }
+            trialsInFlight++;
+            return Permission.TRIAL;
+        }
+        return Permission.GRANTED;
+    }
+
+    public synchronized void onResult(Permission permission, boolean failure) {
+        if (permission == Permission.TRIAL) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            trialsInFlight--;
+            if (failure) {
+                open();
+            } else if (++trialSuccesses >= config.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        if (outcomeCount == outcomes.length && outcomes[outcomePosition]) {
+            failureCount--;
+        }
+        outcomes[outcomePosition] = failure;
+        outcomePosition = (outcomePosition + 1) % outcomes.length;
+        outcomeCount = Math.min(outcomeCount + 1, outcomes.length);
+        if (failure) {
+            failureCount++;
+        }
+
+        if (outcomeCount >= config.getMinimumCalls()
+                && failureCount * 100 >= config.getFailureRateThreshold() * outcomeCount) {
+            open();
+        }
+    }
+
+    /**
+     * Llamada cancelada: libera la prueba sin contar resultado
+     */
+    public synchronized void onIgnored(Permission permission) {
+        if (permission == Permission.TRIAL && state == State.HALF_OPEN) {
+            trialsInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getFailureRate() {
+        return outcomeCount == 0 ? 0 : failureCount * 100 / outcomeCount;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = System.currentTimeMillis();
+        logger.warn("Circuit breaker de {} abierto ({}% de fallos), llamadas rechazadas durante {} ms",
+            name, getFailureRate(), config.getOpenDurationMs());
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        outcomeCount = 0;
+        outcomePosition = 0;
+        failureCount = 0;
+        logger.info("Circuit breaker de {} cerrado, instancia recuperada", name);
+    }
+}
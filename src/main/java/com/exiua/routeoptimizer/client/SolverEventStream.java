@@ -0,0 +1,339 @@
+package com.exiua.routeoptimizer.client;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lector incremental de una resolución en streaming (NDJSON o SSE).
+ * Los eventos de progreso y de mejor ruta parcial se entregan al listener a medida que llegan;
+ * el resultado final se escribe en un archivo temporal, igual que una respuesta no streaming.
+ * Una línea que supera el tamaño máximo de evento se vuelca a disco en lugar de acumularse.
+ *
+ * NDJSON: {"type":"progress","progress":42,"message":"..."}, {"type":"best","route":{...}},
+ * {"type":"result","result":{...}} y {"type":"error","message":"..."}.
+ * SSE: event progress|best|result|error con el cuerpo correspondiente en data (en result, el
+ * documento del resultado); sin nombre de evento, data se interpreta como una línea NDJSON.
+ */
+final class SolverEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolverEventStream.class);
+
+    private static final byte[] SSE_DATA_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+
+    private enum Mode { NDJSON, SSE }
+
+    private final Mode mode;
+    private final RouteProcessingClient.SolveListener listener;
+    private final ObjectMapper mapper;
+    private final Path spoolDirectory;
+    private final int maxEventBytes;
+
+    // Línea en curso; si supera maxEventBytes continúa en spillFile
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private Path spillFile;
+    private OutputStream spill;
+
+    // Evento SSE en curso
+    private String sseEvent;
+    private final ByteArrayOutputStream sseData = new ByteArrayOutputStream();
+    private Path sseLargeData;
+
+    private RouteProcessingClient.SolverResponse result;
+
+    private SolverEventStream(Mode mode, RouteProcessingClient.SolveListener listener, ObjectMapper mapper,
+                              Path spoolDirectory, int maxEventBytes) {
+        this.mode = mode;
+        this.listener = listener;
+        this.mapper = mapper;
+        this.spoolDirectory = spoolDirectory;
+        this.maxEventBytes = maxEventBytes;
+    }
+
+    static boolean supports(MediaType contentType) {
+        return contentType != null && (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+            || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType));
+    }
+
+    static SolverEventStream open(MediaType contentType, RouteProcessingClient.SolveListener listener,
+                                  ObjectMapper mapper, Path spoolDirectory, int maxEventBytes) {
+        Mode mode = MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType) ? Mode.SSE : Mode.NDJSON;
+        return new SolverEventStream(mode, listener, mapper, spoolDirectory, maxEventBytes);
+    }
+
+    /**
+     * Procesar un fragmento del cuerpo; el buffer se libera siempre
+     */
+    void accept(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            int start = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    append(bytes, start, i - start);
+                    endLine();
+                    start = i + 1;
+                }
+            }
+            append(bytes, start, bytes.length - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Fin del cuerpo: procesar lo pendiente y devolver el resultado final (null si no llegó)
+     */
+    RouteProcessingClient.SolverResponse complete() throws IOException {
+        if (spill != null || line.size() > 0) {
+            endLine();
+        }
+        if (mode == Mode.SSE) {
+            dispatchSse();
+        }
+        RouteProcessingClient.SolverResponse completed = result;
+        result = null;
+        return completed;
+    }
+
+    /**
+     * Borrar los archivos temporales pendientes (error o cancelación)
+     */
+    void discard() {
+        closeSpill();
+        deleteQuietly(spillFile);
+        deleteQuietly(sseLargeData);
+        if (result != null) {
+            deleteQuietly(result.file());
+            result = null;
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (spill != null) {
+            spill.write(bytes, offset, length);
+            return;
+        }
+        line.write(bytes, offset, length);
+        if (line.size() > maxEventBytes) {
+            startSpill();
+        }
+    }
+
+    private void startSpill() throws IOException {
+        spillFile = Files.createTempFile(spoolDirectory, "event-", ".part");
+        spill = new BufferedOutputStream(Files.newOutputStream(spillFile));
+        byte[] head = line.toByteArray();
+        line.reset();
+        // En SSE el archivo guarda solo el valor del campo data
+        int skip = 0;
+        if (mode == Mode.SSE && startsWith(head, SSE_DATA_PREFIX)) {
+            skip = SSE_DATA_PREFIX.length;
+            if (head.length > skip && head[skip] == ' ') {
+                skip++;
+            }
+        }
+        spill.write(head, skip, head.length - skip);
+    }
+
+    private void endLine() throws IOException {
+        if (spill != null) {
+            closeSpill();
+            Path file = spillFile;
+            spillFile = null;
+            onLargeLine(file);
+            return;
+        }
+        byte[] bytes = line.toByteArray();
+        line.reset();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        if (mode == Mode.NDJSON) {
+            onNdjsonLine(bytes, length);
+        } else {
+            onSseLine(bytes, length);
+        }
+    }
+
+    /**
+     * Línea mayor al tamaño máximo de evento: solo se espera para el resultado final
+     */
+    private void onLargeLine(Path file) throws IOException {
+        if (mode == Mode.NDJSON) {
+            setResult(file, "result");
+        } else {
+            deleteQuietly(sseLargeData);
+            sseLargeData = file;
+        }
+    }
+
+    private void onNdjsonLine(byte[] bytes, int length) throws IOException {
+        if (isBlank(bytes, length)) {
+            return;
+        }
+        JsonNode event = mapper.readTree(bytes, 0, length);
+        String type = event.path("type").asText("");
+        switch (type) {
+            case "progress" -> onProgress(event);
+            case "best" -> listener.onBestSoFar(event.has("route") ? event.get("route") : event);
+            case "result" -> setResult(writeSpool(bytes, length), "result");
+            case "error" -> throw new SolverStreamException(event.path("message").asText("error sin detalle"));
+            default -> logger.debug("Evento de resolución ignorado: {}", type);
+        }
+    }
+
+    private void onSseLine(byte[] bytes, int length) throws IOException {
+        if (length == 0) {
+            dispatchSse();
+            return;
+        }
+        if (bytes[0] == ':') {
+            return;
+        }
+        String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        int colon = text.indexOf(':');
+        String field = colon < 0 ? text : text.substring(0, colon);
+        String value = colon < 0 ? "" : text.substring(colon + 1);
+        if (value.startsWith(" ")) {
+            value = value.substring(1);
+        }
+        if ("event".equals(field)) {
+            sseEvent = value;
+        } else if ("data".equals(field)) {
+            if (sseData.size() > 0) {
+                sseData.write('\n');
+            }
+            sseData.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void dispatchSse() throws IOException {
+        String event = sseEvent;
+        byte[] data = sseData.toByteArray();
+        Path largeData = sseLargeData;
+        sseEvent = null;
+        sseData.reset();
+        sseLargeData = null;
+
+        if (largeData != null) {
+            if (event == null || "result".equals(event)) {
+                setResult(largeData, null);
+            } else {
+                logger.warn("Evento SSE '{}' demasiado grande, se descarta", event);
+                deleteQuietly(largeData);
+            }
+            return;
+        }
+        if (data.length == 0) {
+            return;
+        }
+        if (event == null || "message".equals(event)) {
+            onNdjsonLine(data, data.length);
+            return;
+        }
+        switch (event) {
+            case "progress" -> onProgress(mapper.readTree(data));
+            case "best" -> listener.onBestSoFar(mapper.readTree(data));
+            case "result" -> setResult(writeSpool(data, data.length), null);
+            case "error" -> throw new SolverStreamException(new String(data, StandardCharsets.UTF_8));
+            default -> logger.debug("Evento SSE de resolución ignorado: {}", event);
+        }
+    }
+
+    private void onProgress(JsonNode event) {
+        if (event.has("progress")) {
+            listener.onProgress(event.get("progress").asInt(), event.path("message").asText(null));
+        }
+    }
+
+    private void setResult(Path file, String resultField) throws IOException {
+        if (result != null) {
+            deleteQuietly(result.file());
+        }
+        result = new RouteProcessingClient.SolverResponse(file, MediaType.APPLICATION_JSON, null,
+            Files.size(file), resultField);
+    }
+
+    private Path writeSpool(byte[] bytes, int length) throws IOException {
+        Path file = Files.createTempFile(spoolDirectory, "solve-", ".part");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(bytes, 0, length);
+        }
+        return file;
+    }
+
+    private void closeSpill() {
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.close();
+        } catch (IOException e) {
+            logger.warn("Error cerrando evento volcado a disco: {}", e.getMessage());
+        }
+        spill = null;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el archivo temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * El servicio de procesamiento reportó un error dentro del stream
+     */
+    static final class SolverStreamException extends RuntimeException {
+        SolverStreamException(String message) {
+            super("El servicio de procesamiento reportó un error: " + message);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.exiua.routeoptimizer.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Executor de hilos virtuales (un hilo por tarea) con concurrencia limitada por semáforo.
+ * El permiso se adquiere dentro del hilo virtual, de modo que quien envía la tarea
+ * nunca se bloquea; las tareas en exceso esperan estacionadas sin ocupar hilos de plataforma.
+ * Requiere Java 21 en tiempo de ejecución.
+ */
+public class BoundedVirtualThreadExecutor implements Executor, AutoCloseable {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.delegate.setVirtualThreads(true);
+        this.delegate.setTaskTerminationTimeout(30_000);
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // Interrumpido esperando permiso (p. ej. al cerrar): la tarea no se ejecuta sin permiso,
+                // que rompería el límite de concurrencia. Se cancela su future si lo tiene; una etapa de
+                // CompletableFuture queda sin completar y el trabajo termina por su timeout.
+                Thread.currentThread().interrupt();
+                if (task instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                throw new RejectedExecutionException("Tarea rechazada: hilo interrumpido esperando permiso", e);
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
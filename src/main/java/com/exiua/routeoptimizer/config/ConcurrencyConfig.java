@@ -1,7 +1,10 @@
 package com.exiua.routeoptimizer.config;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,12 +12,20 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
- * Configuración para manejo de concurrencia y hilos
+ * Configuración para manejo de concurrencia y hilos.
+ * El modo "virtual" requiere Java 21 en tiempo de ejecución; el build compila para Java 17,
+ * así que en un runtime anterior se ignora el modo y se usan los pools de plataforma.
  */
 @Configuration
 @EnableAsync
 public class ConcurrencyConfig {
     
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyConfig.class);
+    
+    private static final int VIRTUAL_THREADS_MIN_JAVA = 21;
+    
+    private static final AtomicBoolean fallbackLogged = new AtomicBoolean();
+    
     @Value("${optimization.thread-pool.core-size:4}")
     private int corePoolSize;
     
@@ -27,11 +38,25 @@ public class ConcurrencyConfig {
     @Value("${optimization.thread-pool.keep-alive-seconds:60}")
     private int keepAliveSeconds;
     
+    // Modo de ejecución: "platform" (ThreadPoolTaskExecutor) o "virtual" (hilos virtuales, solo con Java 21+)
+    @Value("${optimization.executor.mode:platform}")
+    private String executorMode;
+    
+    @Value("${optimization.executor.optimization-max-concurrency:1000}")
+    private int optimizationMaxConcurrency;
+    
+    @Value("${optimization.executor.utility-max-concurrency:100}")
+    private int utilityMaxConcurrency;
+    
     /**
-     * ThreadPoolTaskExecutor para procesamiento asíncrono de optimizaciones
+     * Executor para procesamiento asíncrono de optimizaciones
      */
     @Bean(name = "optimizationTaskExecutor")
     public Executor optimizationTaskExecutor() {
+        if (isVirtualMode(executorMode)) {
+            return new BoundedVirtualThreadExecutor("OptimizationWorker-", optimizationMaxConcurrency);
+        }
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         executor.setCorePoolSize(corePoolSize);
@@ -51,10 +76,14 @@ public class ConcurrencyConfig {
     }
     
     /**
-     * ThreadPoolTaskExecutor para tareas auxiliares (monitoreo, limpieza, etc.)
+     * Executor para tareas auxiliares (monitoreo, limpieza, etc.)
      */
     @Bean(name = "utilityTaskExecutor")
     public Executor utilityTaskExecutor() {
+        if (isVirtualMode(executorMode)) {
+            return new BoundedVirtualThreadExecutor("UtilityWorker-", utilityMaxConcurrency);
+        }
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         executor.setCorePoolSize(2);
@@ -71,12 +100,20 @@ public class ConcurrencyConfig {
     }
     
     /**
-     * Configuración de WebClient para llamadas no bloqueantes
+     * Indica si se deben usar hilos virtuales: el modo configurado es "virtual" y el runtime los soporta
      */
-    @Bean
-    public org.springframework.web.reactive.function.client.WebClient webClient() {
-        return org.springframework.web.reactive.function.client.WebClient.builder()
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
-            .build();
+    static boolean isVirtualMode(String mode) {
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            return false;
+        }
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < VIRTUAL_THREADS_MIN_JAVA) {
+            if (fallbackLogged.compareAndSet(false, true)) {
+                logger.warn("optimization.executor.mode=virtual requiere Java {} (runtime actual: Java {}); " +
+                    "se usan executors de plataforma", VIRTUAL_THREADS_MIN_JAVA, javaVersion);
+            }
+            return false;
+        }
+        return true;
     }
 }
\ No newline at end of file
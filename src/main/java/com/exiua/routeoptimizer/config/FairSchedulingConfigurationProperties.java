@@ -0,0 +1,106 @@
+package com.exiua.routeoptimizer.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for per-user fair scheduling of queued optimization jobs
+ */
+@Configuration
+@ConfigurationProperties(prefix = "optimization.fair-scheduling")
+public class FairSchedulingConfigurationProperties {
+
+    private boolean enabled = true;
+    private int quantum = 4;
+    private int maxQueuedPerUser = 50;
+    private String defaultTier = "standard";
+    private Map<String, Integer> tierWeights = new HashMap<>(Map.of(
+        "interactive", 4,
+        "standard", 2,
+        "bulk", 1));
+    private Map<String, Integer> tierDeadlineSeconds = new HashMap<>(Map.of(
+        "interactive", 60,
+        "standard", 300,
+        "bulk", 1800));
+    private Map<String, String> userTiers = new HashMap<>();
+
+    /**
+     * Tier assigned to a user (default tier when unassigned)
+     */
+    public String tierFor(String userId) {
+        return userId != null ? userTiers.getOrDefault(userId, defaultTier) : defaultTier;
+    }
+
+    /**
+     * Weight of the tier assigned to a user
+     */
+    public int weightFor(String userId) {
+        return Math.max(1, tierWeights.getOrDefault(tierFor(userId), 1));
+    }
+
+    /**
+     * Completion deadline (seconds from submission) of the tier assigned to a user
+     */
+    public int deadlineSecondsFor(String userId) {
+        return Math.max(1, tierDeadlineSeconds.getOrDefault(tierFor(userId), 300));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    public void setQuantum(int quantum) {
+        this.quantum = quantum;
+    }
+
+    public int getMaxQueuedPerUser() {
+        return maxQueuedPerUser;
+    }
+
+    public void setMaxQueuedPerUser(int maxQueuedPerUser) {
+        this.maxQueuedPerUser = maxQueuedPerUser;
+    }
+
+    public String getDefaultTier() {
+        return defaultTier;
+    }
+
+    public void setDefaultTier(String defaultTier) {
+        this.defaultTier = defaultTier;
+    }
+
+    public Map<String, Integer> getTierWeights() {
+        return tierWeights;
+    }
+
+    public void setTierWeights(Map<String, Integer> tierWeights) {
+        this.tierWeights = tierWeights;
+    }
+
+    public Map<String, Integer> getTierDeadlineSeconds() {
+        return tierDeadlineSeconds;
+    }
+
+    public void setTierDeadlineSeconds(Map<String, Integer> tierDeadlineSeconds) {
+        this.tierDeadlineSeconds = tierDeadlineSeconds;
+    }
+
+    public Map<String, String> getUserTiers() {
+        return userTiers;
+    }
+
+    public void setUserTiers(Map<String, String> userTiers) {
+        this.userTiers = userTiers;
+    }
+}
@@ -0,0 +1,65 @@
+package com.exiua.routeoptimizer.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.exiua.routeoptimizer.client.ConnectionPoolMetricsRegistrar;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Cliente HTTP saliente compartido: un pool de conexiones persistentes por host remoto
+ * (evita abrir una conexión TCP/TLS por resolución), timeouts y protocolo configurables.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider outboundConnectionProvider(HttpClientConfigurationProperties properties,
+                                                         ConnectionPoolMetricsRegistrar metricsRegistrar) {
+        return ConnectionProvider.builder("outbound")
+            .maxConnections(properties.getMaxConnections())
+            .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMs()))
+            .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTimeMs()))
+            .maxLifeTime(Duration.ofMillis(properties.getMaxLifeTimeMs()))
+            .evictInBackground(Duration.ofMillis(properties.getEvictInBackgroundMs()))
+            .metrics(true, () -> metricsRegistrar)
+            .build();
+    }
+
+    /**
+     * WebClient para llamadas no bloqueantes a otros servicios
+     */
+    @Bean
+    public WebClient webClient(ConnectionProvider outboundConnectionProvider, HttpClientConfigurationProperties properties) {
+        HttpClient httpClient = HttpClient.create(outboundConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMs())
+            .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+            .keepAlive(properties.isKeepAlive())
+            .protocol(protocols(properties.getProtocol()));
+        if (properties.getResponseTimeoutMs() > 0) {
+            httpClient = httpClient.responseTimeout(Duration.ofMillis(properties.getResponseTimeoutMs()));
+        }
+
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(properties.getMaxInMemorySize()))
+            .build();
+    }
+
+    private static HttpProtocol[] protocols(String protocol) {
+        return switch (protocol.toLowerCase()) {
+            case "h2" -> new HttpProtocol[] {HttpProtocol.H2, HttpProtocol.HTTP11};
+            case "h2c" -> new HttpProtocol[] {HttpProtocol.H2C, HttpProtocol.HTTP11};
+            default -> new HttpProtocol[] {HttpProtocol.HTTP11};
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.exiua.routeoptimizer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the shared outbound HTTP client (connection pool per remote host)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "optimization.http-client")
+public class HttpClientConfigurationProperties {
+
+    private int maxConnections = 100;
+    private int pendingAcquireMaxCount = 500;
+    private long pendingAcquireTimeoutMs = 45000;
+    private long maxIdleTimeMs = 30000;
+    private long maxLifeTimeMs = 300000;
+    private long evictInBackgroundMs = 30000;
+    private int connectTimeoutMs = 5000;
+    // 0 disables the response timeout (solves are bounded by the job timeout)
+    private long responseTimeoutMs = 0;
+    private boolean keepAlive = true;
+    // http11, h2 (TLS with ALPN, falls back to HTTP/1.1) or h2c (cleartext HTTP/2)
+    private String protocol = "http11";
+    private int maxInMemorySize = 16 * 1024 * 1024;
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public long getPendingAcquireTimeoutMs() {
+        return pendingAcquireTimeoutMs;
+    }
+
+    public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+        this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+    }
+
+    public long getMaxIdleTimeMs() {
+        return maxIdleTimeMs;
+    }
+
+    public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+        this.maxIdleTimeMs = maxIdleTimeMs;
+    }
+
+    public long getMaxLifeTimeMs() {
+        return maxLifeTimeMs;
+    }
+
+    public void setMaxLifeTimeMs(long maxLifeTimeMs) {
+        this.maxLifeTimeMs = maxLifeTimeMs;
+    }
+
+    public long getEvictInBackgroundMs() {
+        return evictInBackgroundMs;
+    }
+
+    public void setEvictInBackgroundMs(long evictInBackgroundMs) {
+        this.evictInBackgroundMs = evictInBackgroundMs;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getResponseTimeoutMs() {
+        return responseTimeoutMs;
+    }
+
+    public void setResponseTimeoutMs(long responseTimeoutMs) {
+        this.responseTimeoutMs = responseTimeoutMs;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public int getMaxInMemorySize() {
+        return maxInMemorySize;
+    }
+
+    public void setMaxInMemorySize(int maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+}
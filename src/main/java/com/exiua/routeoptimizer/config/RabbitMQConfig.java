@@ -1,5 +1,6 @@
 package com.exiua.routeoptimizer.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
@@ -13,6 +14,7 @@ import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -23,6 +25,11 @@ import org.springframework.context.annotation.Configuration;
 @EnableRabbit
 public class RabbitMQConfig {
 
+    // Cola de trabajo de los nodos worker (modo queue): solo recibe trabajos encolados
+    public static final String DISPATCH_QUEUE = "route.optimization.dispatch.queue";
+    public static final String DISPATCH_ROUTING_KEY = "route.optimization.dispatch";
+    public static final String DISPATCH_DEAD_LETTER_QUEUE = "route.optimization.dispatch.dlq";
+
     // === ROUTE OPTIMIZATION EXCHANGES ===
     
     @Bean
@@ -42,6 +49,23 @@ public class RabbitMQConfig {
                 .build();
     }
     
+    /**
+     * Cola de trabajos encolados para los workers. Sin TTL: un trabajo encolado nunca expira en
+     * silencio; al llegar al límite el broker rechaza la publicación (reject-publish) en lugar de
+     * descartar el mensaje más antiguo, y el nodo que encola marca el trabajo como FAILED.
+     * Los mensajes que un worker rechaza pasan a la cola de dead letters.
+     */
+    @Bean
+    public Queue routeOptimizationDispatchQueue(
+            @Value("${optimization.dispatch.max-queue-length:10000}") int maxQueueLength) {
+        return QueueBuilder.durable(DISPATCH_QUEUE)
+                .withArgument("x-max-length", maxQueueLength)
+                .withArgument("x-overflow", "reject-publish")
+                .withArgument("x-dead-letter-exchange", "route.optimization.dlx")
+                .withArgument("x-dead-letter-routing-key", "dispatch")
+                .build();
+    }
+    
     @Bean
     public Queue routeOptimizationProgressQueue() {
         return QueueBuilder.durable("route.optimization.progress.queue")
@@ -98,6 +122,13 @@ public class RabbitMQConfig {
                 .with("route.optimization.request.#");
     }
     
+    @Bean
+    public Binding routeOptimizationDispatchBinding(Queue routeOptimizationDispatchQueue) {
+        return BindingBuilder.bind(routeOptimizationDispatchQueue)
+                .to(routeOptimizationExchange())
+                .with(DISPATCH_ROUTING_KEY);
+    }
+    
     @Bean
     public Binding routeOptimizationProgressBinding() {
         return BindingBuilder.bind(routeOptimizationProgressQueue())
@@ -174,6 +205,26 @@ public class RabbitMQConfig {
         return factory;
     }
     
+    /**
+     * Contenedor de los nodos worker: ack manual al terminar cada trabajo, de modo que el
+     * prefetch limita cuántos trabajos sin confirmar retiene cada consumidor (backpressure)
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory optimizationWorkerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${optimization.worker.concurrency:2}") int concurrency,
+            @Value("${optimization.worker.prefetch:4}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(concurrency);
+        factory.setPrefetchCount(prefetch);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+    
     // === DEAD LETTER QUEUE CONFIGURATION ===
     
     @Bean
@@ -192,4 +243,16 @@ public class RabbitMQConfig {
                 .to(routeOptimizationDeadLetterExchange())
                 .with("failed");
     }
-}
\ No newline at end of file
+    
+    @Bean
+    public Queue routeOptimizationDispatchDeadLetterQueue() {
+        return QueueBuilder.durable(DISPATCH_DEAD_LETTER_QUEUE).build();
+    }
+    
+    @Bean
+    public Binding routeOptimizationDispatchDeadLetterBinding() {
+        return BindingBuilder.bind(routeOptimizationDispatchDeadLetterQueue())
+                .to(routeOptimizationDeadLetterExchange())
+                .with("dispatch");
+    }
+}
@@ -1,5 +1,8 @@
 package com.exiua.routeoptimizer.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,14 +12,436 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConfigurationProperties(prefix = "route.processing.service")
 public class RouteProcessingConfigurationProperties {
-    
-    private String url;
-    
+
+    private String url = "http://localhost:8086";
+
+    private List<String> urls = new ArrayList<>();
+
+    private Hedging hedging = new Hedging();
+
+    private Limiter limiter = new Limiter();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Encoding encoding = new Encoding();
+
+    private Spool spool = new Spool();
+
+    private Streaming streaming = new Streaming();
+
+    /**
+     * Instances to balance across: urls when set, otherwise the single url
+     */
+    public List<String> getEndpoints() {
+        List<String> endpoints = urls.stream()
+            .map(String::trim)
+            .filter(endpoint -> !endpoint.isEmpty())
+            .toList();
+        return endpoints.isEmpty() ? List.of(url) : endpoints;
+    }
+
     public String getUrl() {
         return url;
     }
-    
+
     public void setUrl(String url) {
         this.url = url;
     }
-}
\ No newline at end of file
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+
+    public Limiter getLimiter() {
+        return limiter;
+    }
+
+    public void setLimiter(Limiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public void setSpool(Spool spool) {
+        this.spool = spool;
+    }
+
+    public Streaming getStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(Streaming streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Hedged solves: a second instance is tried once the first has been slower than the
+     * configured latency percentile of recent solves
+     */
+    public static class Hedging {
+
+        private boolean enabled = true;
+        private double percentile = 95.0;
+        private long initialDelayMs = 30000;
+        private long minDelayMs = 1000;
+        private long maxDelayMs = 120000;
+        private int minSamples = 20;
+        private int windowSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public long getInitialDelayMs() {
+            return initialDelayMs;
+        }
+
+        public void setInitialDelayMs(long initialDelayMs) {
+            this.initialDelayMs = initialDelayMs;
+        }
+
+        public long getMinDelayMs() {
+            return minDelayMs;
+        }
+
+        public void setMinDelayMs(long minDelayMs) {
+            this.minDelayMs = minDelayMs;
+        }
+
+        public long getMaxDelayMs() {
+            return maxDelayMs;
+        }
+
+        public void setMaxDelayMs(long maxDelayMs) {
+            this.maxDelayMs = maxDelayMs;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+    }
+
+    /**
+     * AIMD concurrency limit per instance: grows by 1/limit per fast response, shrinks by
+     * backoff-ratio on errors or on latency above latency-tolerance times the baseline of the
+     * solve's size group (POI count rounded down to a power of 2)
+     */
+    public static class Limiter {
+
+        private boolean enabled = true;
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 100;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+        private double baselineSmoothing = 0.05;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public double getBaselineSmoothing() {
+            return baselineSmoothing;
+        }
+
+        public void setBaselineSmoothing(double baselineSmoothing) {
+            this.baselineSmoothing = baselineSmoothing;
+        }
+    }
+
+    /**
+     * Circuit breaker per instance: opens when the failure rate (errors and slow calls) of the
+     * last window-size calls reaches the threshold, and probes with half-open-calls after open-duration.
+     * A call is slow when it takes more than slow-call-latency-factor times the instance's baseline
+     * latency for solves of the same size group.
+     */
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+        private int failureRateThreshold = 50;
+        private int minimumCalls = 10;
+        private int windowSize = 20;
+        private long openDurationMs = 30000;
+        private int halfOpenCalls = 2;
+        private double slowCallLatencyFactor = 5.0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        public double getSlowCallLatencyFactor() {
+            return slowCallLatencyFactor;
+        }
+
+        public void setSlowCallLatencyFactor(double slowCallLatencyFactor) {
+            this.slowCallLatencyFactor = slowCallLatencyFactor;
+        }
+    }
+
+    /**
+     * Wire format of solve requests and responses. Requests use the configured format and
+     * compression; an instance answering 415 is switched to plain JSON. Responses are negotiated
+     * through Accept / Accept-Encoding and may come back as Smile, CBOR or JSON, gzip or zstd.
+     */
+    public static class Encoding {
+
+        // json, smile or cbor
+        private String format = "json";
+        // none, gzip or zstd
+        private String compression = "none";
+        // Bodies smaller than this are sent uncompressed
+        private int compressionMinBytes = 2048;
+        private int zstdLevel = 3;
+
+        public String getFormat() {
+            return format;
+        }
+
+        public void setFormat(String format) {
+            this.format = format;
+        }
+
+        public String getCompression() {
+            return compression;
+        }
+
+        public void setCompression(String compression) {
+            this.compression = compression;
+        }
+
+        public int getCompressionMinBytes() {
+            return compressionMinBytes;
+        }
+
+        public void setCompressionMinBytes(int compressionMinBytes) {
+            this.compressionMinBytes = compressionMinBytes;
+        }
+
+        public int getZstdLevel() {
+            return zstdLevel;
+        }
+
+        public void setZstdLevel(int zstdLevel) {
+            this.zstdLevel = zstdLevel;
+        }
+    }
+
+    /**
+     * Solve responses are streamed to a temporary file instead of being buffered in memory.
+     * Results up to inlineMaxBytes are then kept as a String; larger ones are streamed into
+     * the job row and never held in memory whole.
+     */
+    public static class Spool {
+
+        // Empty uses java.io.tmpdir
+        private String directory = "";
+        private int inlineMaxBytes = 262144;
+        // Leftover spool files (e.g. from a discarded hedge) older than this are deleted
+        private long staleFileMinutes = 60;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getInlineMaxBytes() {
+            return inlineMaxBytes;
+        }
+
+        public void setInlineMaxBytes(int inlineMaxBytes) {
+            this.inlineMaxBytes = inlineMaxBytes;
+        }
+
+        public long getStaleFileMinutes() {
+            return staleFileMinutes;
+        }
+
+        public void setStaleFileMinutes(long staleFileMinutes) {
+            this.staleFileMinutes = staleFileMinutes;
+        }
+    }
+
+    /**
+     * Streaming solve responses: when enabled, solves also accept application/x-ndjson and
+     * text/event-stream. A streaming instance emits progress and best-so-far events before the
+     * final result; other instances keep answering with a single document. Streams are read
+     * line by line as they arrive, so solve responses are requested with Accept-Encoding: identity.
+     */
+    public static class Streaming {
+
+        private boolean enabled = false;
+        // Events larger than this are spooled to disk (only the final result is expected to be)
+        private int maxEventBytes = 65536;
+        // Minimum interval between progress events published for the same job
+        private long progressMinIntervalMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEventBytes() {
+            return maxEventBytes;
+        }
+
+        public void setMaxEventBytes(int maxEventBytes) {
+            this.maxEventBytes = maxEventBytes;
+        }
+
+        public long getProgressMinIntervalMs() {
+            return progressMinIntervalMs;
+        }
+
+        public void setProgressMinIntervalMs(long progressMinIntervalMs) {
+            this.progressMinIntervalMs = progressMinIntervalMs;
+        }
+    }
+}
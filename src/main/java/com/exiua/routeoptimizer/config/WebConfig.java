@@ -2,6 +2,7 @@ package com.exiua.routeoptimizer.config;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
@@ -19,6 +20,12 @@ public class WebConfig implements WebMvcConfigurer {
 
     private final CorsConfigurationProperties corsProperties;
 
+    @Value("${optimization.executor.mode:platform}")
+    private String executorMode;
+
+    @Value("${optimization.executor.task-max-concurrency:2000}")
+    private int taskMaxConcurrency;
+
     public WebConfig(CorsConfigurationProperties corsProperties) {
         this.corsProperties = corsProperties;
     }
@@ -38,6 +45,10 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (ConcurrencyConfig.isVirtualMode(executorMode)) {
+            return new BoundedVirtualThreadExecutor("async-exec-", taskMaxConcurrency);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(20);
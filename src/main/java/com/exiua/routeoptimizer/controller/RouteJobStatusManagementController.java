@@ -1,17 +1,30 @@
 package com.exiua.routeoptimizer.controller;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.exiua.routeoptimizer.dto.BatchJobStatusRequestDTO;
 import com.exiua.routeoptimizer.dto.JobStatusResponseDTO;
+import com.exiua.routeoptimizer.model.JobState;
 import com.exiua.routeoptimizer.service.EnhancedRouteOptimizationService;
+import com.exiua.routeoptimizer.service.JobEventBus;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,7 +33,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 /**
- * REST Controller implementing Request-Response with Status Polling pattern
+ * REST Controller implementing Request-Response with Status Polling pattern,
+ * plus server-push status subscriptions over SSE.
+ * Status responses carry the job version as ETag: a poll with a matching If-None-Match gets a
+ * bodiless 304, and ?waitSeconds= parks the poll until the version changes (long-poll).
  */
 @RestController
 @RequestMapping("/api/v1")
@@ -28,11 +44,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class RouteJobStatusManagementController {
        
     private final EnhancedRouteOptimizationService enhancedOptimizationService;
+    private final JobEventBus jobEventBus;
+    
+    @Value("${optimization.job-events.max-wait-seconds:60}")
+    private int maxWaitSeconds;
+    
+    @Value("${optimization.batch.max-status-ids:500}")
+    private int maxStatusBatchSize;
     
 
-    public RouteJobStatusManagementController(EnhancedRouteOptimizationService enhancedOptimizationService) {
+    public RouteJobStatusManagementController(EnhancedRouteOptimizationService enhancedOptimizationService,
+                                              JobEventBus jobEventBus) {
         this.enhancedOptimizationService = enhancedOptimizationService;
-        
+        this.jobEventBus = jobEventBus;
     }
     
     /**
@@ -49,7 +73,62 @@ public class RouteJobStatusManagementController {
     })
     public ResponseEntity<JobStatusResponseDTO> getJobStatus(
             @Parameter(description = "Job ID to check status for")
-            @PathVariable String jobId) {
+            @PathVariable String jobId,
+            @Parameter(description = "ETag from a previous response; 304 if the job has not changed")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return statusResponse(jobId, ifNoneMatch);
+    }
+
+    /**
+     * Long-poll job status: wait until the job changes instead of polling on a timer
+     */
+    @GetMapping(value = "/jobs/{jobId}/status", params = "waitSeconds")
+    @Operation(summary = "Wait for job status change", 
+               description = "Long-poll: answers as soon as the job version differs from If-None-Match "
+                   + "(or from the current one), or when waitSeconds elapse")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job completed successfully"),
+        @ApiResponse(responseCode = "202", description = "Job still processing"),
+        @ApiResponse(responseCode = "304", description = "Job unchanged during the wait"),
+        @ApiResponse(responseCode = "404", description = "Job not found"),
+        @ApiResponse(responseCode = "500", description = "Job failed")
+    })
+    public DeferredResult<ResponseEntity<JobStatusResponseDTO>> waitForJobStatus(
+            @Parameter(description = "Job ID to check status for")
+            @PathVariable String jobId,
+            @Parameter(description = "Maximum seconds to wait for a change")
+            @RequestParam int waitSeconds,
+            @Parameter(description = "ETag from a previous response")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        long timeoutMs = Math.max(1, Math.min(waitSeconds, maxWaitSeconds)) * 1000L;
+        DeferredResult<ResponseEntity<JobStatusResponseDTO>> deferred =
+            new DeferredResult<>(timeoutMs, () -> statusResponse(jobId, ifNoneMatch));
+
+        Optional<JobState> state = enhancedOptimizationService.getJobState(jobId);
+        if (state.isEmpty() || waitSeconds <= 0 || state.get().isTerminal()
+                || (ifNoneMatch != null && !etagMatches(ifNoneMatch, state.get().getVersion()))) {
+            deferred.setResult(statusResponse(jobId, ifNoneMatch));
+            return deferred;
+        }
+
+        // Sin hilo retenido: el bus completa la respuesta cuando la versión cambia
+        Runnable cancel = jobEventBus.awaitChange(jobId, state.get().getVersion(),
+            () -> deferred.setResult(statusResponse(jobId, ifNoneMatch)));
+        deferred.onCompletion(cancel);
+        return deferred;
+    }
+
+    private ResponseEntity<JobStatusResponseDTO> statusResponse(String jobId, String ifNoneMatch) {
+        // Comparar la versión antes de construir la respuesta (que incluye el resultado completo)
+        Optional<JobState> state = enhancedOptimizationService.getJobState(jobId);
+        if (state.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, state.get().getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(state.get().getVersion())).build();
+        }
 
         Optional<JobStatusResponseDTO> jobStatusOpt = enhancedOptimizationService.getJobStatus(jobId);
 
@@ -58,18 +137,80 @@ public class RouteJobStatusManagementController {
         }
         
         JobStatusResponseDTO jobStatus = jobStatusOpt.get();
+        String etag = etag(jobStatus.getVersion());
         
         switch (jobStatus.getStatus()) {
             case "COMPLETED":
-                return ResponseEntity.ok(jobStatus);
+                return ResponseEntity.ok().eTag(etag).body(jobStatus);
             case "PROCESSING":
             case "PENDING":
-                return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobStatus);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).eTag(etag).body(jobStatus);
             case "FAILED":
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(jobStatus);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).eTag(etag).body(jobStatus);
             default:
-                return ResponseEntity.ok(jobStatus);
+                return ResponseEntity.ok().eTag(etag).body(jobStatus);
+        }
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, long version) {
+        String current = etag(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || current.equals(tag)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Get the status of many jobs in one request (dashboards)
+     */
+    @PostMapping("/jobs/status:batch")
+    @Operation(summary = "Get job statuses in bulk", 
+               description = "Statuses of up to optimization.batch.max-status-ids jobs, without full results. "
+                   + "With 'since' (the watermark of a previous call) only jobs changed after it are returned")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statuses returned; unknown IDs are listed in not_found"),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized list of job IDs")
+    })
+    public ResponseEntity<?> getJobStatuses(@RequestBody BatchJobStatusRequestDTO request) {
+        List<String> jobIds = request.getJobIds();
+        if (jobIds == null || jobIds.isEmpty()) {
+            return ResponseEntity.badRequest().body("La lista de job_ids está vacía");
+        }
+        if (jobIds.size() > maxStatusBatchSize) {
+            return ResponseEntity.badRequest()
+                .body("La consulta excede el máximo de " + maxStatusBatchSize + " trabajos");
+        }
+        return ResponseEntity.ok(enhancedOptimizationService.getJobStatuses(jobIds, request.getSince()));
+    }
+
+    /**
+     * Subscribe to job status changes instead of polling
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to job status", 
+               description = "Server-Sent Events stream: a 'status' event with the current job status, then one "
+                   + "per state or progress change; the stream closes once the job finishes")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public ResponseEntity<SseEmitter> subscribeToJobEvents(
+            @Parameter(description = "Job ID to subscribe to")
+            @PathVariable String jobId) {
+
+        return jobEventBus.subscribe(jobId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
@@ -1,10 +1,16 @@
 package com.exiua.routeoptimizer.controller;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,8 +20,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.exiua.routeoptimizer.dto.BatchJobSubmissionResponseDTO;
+import com.exiua.routeoptimizer.dto.EnrichedProcessingPOI;
 import com.exiua.routeoptimizer.dto.EnrichedProviderData;
 import com.exiua.routeoptimizer.dto.JobSubmissionResponseDTO;
+import com.exiua.routeoptimizer.exceptions.AdmissionRejectedException;
 import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
 import com.exiua.routeoptimizer.service.EnhancedRouteOptimizationService;
 import com.exiua.routeoptimizer.service.EnrichedRouteOptimizationIntegrationService;
@@ -38,6 +47,9 @@ public class RouteProcessingController {
     
     @Autowired
     private EnhancedRouteOptimizationService enhancedOptimizationService;
+    
+    @Value("${optimization.batch.max-size:100}")
+    private int maxBatchSize;
 
     /**
      * DTO para recibir parámetros de construcción de ruta
@@ -53,6 +65,7 @@ public class RouteProcessingController {
         private Double endLongitude;
         private Double maxBudget;
         private List<String> requiredCategories;
+        private Integer deadlineSeconds;
 
         // Getters y Setters
         public Long getUserId() {
@@ -134,6 +147,14 @@ public class RouteProcessingController {
         public void setRequiredCategories(List<String> requiredCategories) {
             this.requiredCategories = requiredCategories;
         }
+
+        public Integer getDeadlineSeconds() {
+            return deadlineSeconds;
+        }
+
+        public void setDeadlineSeconds(Integer deadlineSeconds) {
+            this.deadlineSeconds = deadlineSeconds;
+        }
     }
 
     /**
@@ -185,6 +206,7 @@ public class RouteProcessingController {
                 params.getOptimizeFor(),
                 params.getMaxBudget()
             );
+            request.setDeadlineSeconds(params.getDeadlineSeconds());
             
             // Enviar al servicio de optimización mejorado
             JobSubmissionResponseDTO jobResponse = enhancedOptimizationService.submitOptimizationRequest(request);
@@ -193,6 +215,10 @@ public class RouteProcessingController {
             
             return ResponseEntity.accepted().body(jobResponse);
             
+        } catch (AdmissionRejectedException e) {
+            // Lo resuelve GlobalExceptionHandler como 429 con Retry-After
+            log.warn("Trabajo de optimización rechazado por admisión: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error enviando trabajo de optimización: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -200,4 +226,86 @@ public class RouteProcessingController {
         }
     }
 
+    /**
+     * Envía un lote de trabajos de optimización en una sola solicitud.
+     * Los proveedores de todas las rutas se enriquecen una sola vez, los trabajos se insertan
+     * en un único batch y cada ruta informa su propio resultado (ACCEPTED, REJECTED o FAILED)
+     * sin que un error en una de ellas haga fallar al resto.
+     * 
+     * POST /api/route-processing/submit-optimization-jobs
+     */
+    @PostMapping("/submit-optimization-jobs")
+    public ResponseEntity<?> submitOptimizationJobs(@RequestBody List<RouteRequestParams> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return ResponseEntity.badRequest().body("El lote debe contener al menos una ruta");
+        }
+        if (batch.size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                .body("El lote excede el máximo de " + maxBatchSize + " rutas");
+        }
+        
+        try {
+            log.info("Recibiendo lote de {} solicitudes de optimización", batch.size());
+            
+            // Enriquecer una sola vez la unión de proveedores del lote
+            Set<Long> providerUnion = new LinkedHashSet<>();
+            batch.stream()
+                .filter(params -> params != null && params.getProviderIds() != null)
+                .forEach(params -> providerUnion.addAll(params.getProviderIds()));
+            Map<Long, EnrichedProcessingPOI> poisByProvider = integrationService.enrichProviders(providerUnion);
+            
+            JobSubmissionResponseDTO[] results = new JobSubmissionResponseDTO[batch.size()];
+            List<Integer> submittedIndexes = new ArrayList<>();
+            List<RouteOptimizationRequest> requests = new ArrayList<>();
+            
+            for (int i = 0; i < batch.size(); i++) {
+                RouteRequestParams params = batch.get(i);
+                if (params == null || params.getUserId() == null 
+                        || params.getProviderIds() == null || params.getProviderIds().isEmpty()) {
+                    results[i] = failedItem("userId y providerIds son requeridos");
+                    continue;
+                }
+                try {
+                    RouteOptimizationRequest request = integrationService.createOptimizationRequestFromEnrichedPOIs(
+                        params.getUserId(),
+                        params.getProviderIds(),
+                        poisByProvider,
+                        params.getOptimizeFor(),
+                        params.getMaxBudget()
+                    );
+                    request.setDeadlineSeconds(params.getDeadlineSeconds());
+                    requests.add(request);
+                    submittedIndexes.add(i);
+                } catch (Exception e) {
+                    results[i] = failedItem(e.getMessage());
+                }
+            }
+            
+            List<JobSubmissionResponseDTO> submitted = requests.isEmpty() 
+                ? List.of() : enhancedOptimizationService.submitOptimizationRequests(requests);
+            for (int j = 0; j < submitted.size(); j++) {
+                results[submittedIndexes.get(j)] = submitted.get(j);
+            }
+            
+            BatchJobSubmissionResponseDTO response = new BatchJobSubmissionResponseDTO(Arrays.asList(results));
+            log.info("Lote de optimización: {}/{} trabajos aceptados", response.getAccepted(), response.getTotal());
+            
+            return response.getAccepted() > 0 
+                ? ResponseEntity.accepted().body(response) 
+                : ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("Error enviando lote de trabajos de optimización: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error enviando lote: " + e.getMessage());
+        }
+    }
+    
+    private JobSubmissionResponseDTO failedItem(String message) {
+        JobSubmissionResponseDTO item = new JobSubmissionResponseDTO();
+        item.setStatus("FAILED");
+        item.setMessage(message);
+        return item;
+    }
+
 }
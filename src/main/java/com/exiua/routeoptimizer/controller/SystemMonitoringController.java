@@ -83,8 +83,14 @@ public class SystemMonitoringController {
             response.setActiveJobs(stats.getActiveJobs());
             response.setMaxConcurrentJobs(stats.getMaxConcurrentJobs());
             response.setAvailableCapacity(stats.getMaxConcurrentJobs() - stats.getActiveJobs());
-            response.setCanAcceptJobs(stats.getActiveJobs() < stats.getMaxConcurrentJobs());
             response.setCapacityUtilization((double) stats.getActiveJobs() / stats.getMaxConcurrentJobs() * 100);
+            response.setCapacityUnits(stats.getCapacityUnits());
+            response.setUsedCapacityUnits(stats.getUsedCapacityUnits());
+            response.setQueuedJobs(stats.getQueuedJobs());
+            response.setMaxQueueSize(stats.getMaxQueueSize());
+            response.setProjectedWaitSeconds(stats.getProjectedWaitSeconds());
+            // Se aceptan trabajos mientras quede lugar en la cola de admisión
+            response.setCanAcceptJobs(stats.getQueuedJobs() < stats.getMaxQueueSize());
             response.setTimestamp(java.time.LocalDateTime.now().toString());
             
             if (response.isCanAcceptJobs()) {
@@ -118,12 +124,32 @@ public class SystemMonitoringController {
             // Componentes del sistema
             response.getComponents().put("optimization_service", stats.getActiveJobs() < stats.getMaxConcurrentJobs() ? "UP" : "BUSY");
             response.getComponents().put("database", "UP"); // Simplificado - en producción verificar conexión DB
+            response.getComponents().put("route_processing", routeProcessingStatus(stats));
             response.getComponents().put("thread_pool", stats.getActiveJobs() < stats.getMaxConcurrentJobs() ? "HEALTHY" : "STRESSED");
             
             // Métricas
             response.getMetrics().put("active_jobs", stats.getActiveJobs());
+            response.getMetrics().put("queued_jobs", stats.getQueuedJobs());
+            response.getMetrics().put("queued_users", stats.getQueuedUsers());
             response.getMetrics().put("total_jobs_submitted", stats.getTotalJobsSubmitted());
             response.getMetrics().put("total_jobs_completed", stats.getTotalJobsCompleted());
+            response.getMetrics().put("total_jobs_coalesced", stats.getTotalJobsCoalesced());
+            response.getMetrics().put("deadline_downgraded_jobs", stats.getDowngradedJobs());
+            response.getMetrics().put("deadline_shed_jobs", stats.getShedJobs());
+            response.getMetrics().put("result_cache_entries", stats.getCacheEntries());
+            response.getMetrics().put("result_cache_hits", stats.getCacheHits());
+            response.getMetrics().put("result_cache_misses", stats.getCacheMisses());
+            response.getMetrics().put("result_cache_evictions", stats.getCacheEvictions());
+            response.getMetrics().put("result_cache_invalidations", stats.getCacheInvalidations());
+            response.getMetrics().put("solver_requests", stats.getSolverRequests());
+            response.getMetrics().put("solver_hedged_requests", stats.getHedgedRequests());
+            response.getMetrics().put("solver_hedge_wins", stats.getHedgeWins());
+            response.getMetrics().put("solver_hedge_delay_ms", stats.getHedgeDelayMs());
+            response.getMetrics().put("solver_request_bytes", stats.getSolverRequestBytes());
+            response.getMetrics().put("solver_request_raw_bytes", stats.getSolverRequestRawBytes());
+            response.getMetrics().put("solver_response_bytes", stats.getSolverResponseBytes());
+            response.getMetrics().put("solver_endpoints", stats.getSolverEndpoints());
+            response.getMetrics().put("http_connection_pools", stats.getHttpPools());
             response.getMetrics().put("success_rate", stats.getSuccessRate());
             response.getMetrics().put("system_load", calculateSystemLoad(stats));
             
@@ -145,6 +171,22 @@ public class SystemMonitoringController {
     
     // Métodos auxiliares
     
+    /**
+     * UP si todas las instancias tienen el circuito cerrado, DOWN si ninguna, DEGRADED en otro caso
+     */
+    private String routeProcessingStatus(SystemStatsDTO stats) {
+        if (stats.getSolverEndpoints() == null || stats.getSolverEndpoints().isEmpty()) {
+            return "UNKNOWN";
+        }
+        long closed = stats.getSolverEndpoints().stream()
+            .filter(endpoint -> "CLOSED".equals(endpoint.circuitState()))
+            .count();
+        if (closed == stats.getSolverEndpoints().size()) {
+            return "UP";
+        }
+        return closed == 0 ? "DOWN" : "DEGRADED";
+    }
+    
     private double calculateSystemLoad(SystemStatsDTO stats) {
         if (stats.getMaxConcurrentJobs() == 0) return 0.0;
         return (double) stats.getActiveJobs() / stats.getMaxConcurrentJobs() * 100;
@@ -206,6 +248,11 @@ public class SystemMonitoringController {
         private int availableCapacity;
         private boolean canAcceptJobs;
         private double capacityUtilization;
+        private int capacityUnits;
+        private int usedCapacityUnits;
+        private int queuedJobs;
+        private int maxQueueSize;
+        private long projectedWaitSeconds;
         private String timestamp;
         
         // Getters y setters
@@ -224,6 +271,21 @@ public class SystemMonitoringController {
         public double getCapacityUtilization() { return capacityUtilization; }
         public void setCapacityUtilization(double capacityUtilization) { this.capacityUtilization = capacityUtilization; }
         
+        public int getCapacityUnits() { return capacityUnits; }
+        public void setCapacityUnits(int capacityUnits) { this.capacityUnits = capacityUnits; }
+        
+        public int getUsedCapacityUnits() { return usedCapacityUnits; }
+        public void setUsedCapacityUnits(int usedCapacityUnits) { this.usedCapacityUnits = usedCapacityUnits; }
+        
+        public int getQueuedJobs() { return queuedJobs; }
+        public void setQueuedJobs(int queuedJobs) { this.queuedJobs = queuedJobs; }
+        
+        public int getMaxQueueSize() { return maxQueueSize; }
+        public void setMaxQueueSize(int maxQueueSize) { this.maxQueueSize = maxQueueSize; }
+        
+        public long getProjectedWaitSeconds() { return projectedWaitSeconds; }
+        public void setProjectedWaitSeconds(long projectedWaitSeconds) { this.projectedWaitSeconds = projectedWaitSeconds; }
+        
         public String getTimestamp() { return timestamp; }
         public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
     }
@@ -0,0 +1,28 @@
+package com.exiua.routeoptimizer.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request DTO for bulk job status. When since is set, only jobs whose version is newer
+ * are returned; pass back the watermark of the previous response.
+ */
+public class BatchJobStatusRequestDTO {
+
+    @JsonProperty("job_ids")
+    private List<String> jobIds;
+
+    @JsonProperty("since")
+    private Long since;
+
+    // Constructors
+    public BatchJobStatusRequestDTO() {}
+
+    // Getters and Setters
+    public List<String> getJobIds() { return jobIds; }
+    public void setJobIds(List<String> jobIds) { this.jobIds = jobIds; }
+
+    public Long getSince() { return since; }
+    public void setSince(Long since) { this.since = since; }
+}
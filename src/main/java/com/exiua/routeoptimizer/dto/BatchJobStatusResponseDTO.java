@@ -0,0 +1,40 @@
+package com.exiua.routeoptimizer.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response DTO for bulk job status. Statuses omit the full result (result_summary is included);
+ * watermark is the highest version among the requested jobs, to be sent as since on the next call.
+ */
+public class BatchJobStatusResponseDTO {
+
+    @JsonProperty("watermark")
+    private Long watermark;
+
+    @JsonProperty("jobs")
+    private List<JobStatusResponseDTO> jobs;
+
+    @JsonProperty("not_found")
+    private List<String> notFound;
+
+    // Constructors
+    public BatchJobStatusResponseDTO() {}
+
+    public BatchJobStatusResponseDTO(Long watermark, List<JobStatusResponseDTO> jobs, List<String> notFound) {
+        this.watermark = watermark;
+        this.jobs = jobs;
+        this.notFound = notFound;
+    }
+
+    // Getters and Setters
+    public Long getWatermark() { return watermark; }
+    public void setWatermark(Long watermark) { this.watermark = watermark; }
+
+    public List<JobStatusResponseDTO> getJobs() { return jobs; }
+    public void setJobs(List<JobStatusResponseDTO> jobs) { this.jobs = jobs; }
+
+    public List<String> getNotFound() { return notFound; }
+    public void setNotFound(List<String> notFound) { this.notFound = notFound; }
+}
@@ -0,0 +1,47 @@
+package com.exiua.routeoptimizer.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response DTO for batch job submission. Jobs are listed in request order;
+ * items that could not be submitted carry status REJECTED or FAILED and a message.
+ */
+public class BatchJobSubmissionResponseDTO {
+
+    @JsonProperty("total")
+    private int total;
+
+    @JsonProperty("accepted")
+    private int accepted;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    @JsonProperty("jobs")
+    private List<JobSubmissionResponseDTO> jobs;
+
+    // Constructors
+    public BatchJobSubmissionResponseDTO() {}
+
+    public BatchJobSubmissionResponseDTO(List<JobSubmissionResponseDTO> jobs) {
+        this.jobs = jobs;
+        this.total = jobs.size();
+        this.accepted = (int) jobs.stream().filter(job -> "ACCEPTED".equals(job.getStatus())).count();
+        this.failed = total - accepted;
+    }
+
+    // Getters and Setters
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<JobSubmissionResponseDTO> getJobs() { return jobs; }
+    public void setJobs(List<JobSubmissionResponseDTO> jobs) { this.jobs = jobs; }
+}
@@ -2,6 +2,7 @@ package com.exiua.routeoptimizer.dto;
 
 import java.time.LocalDateTime;
 
+import com.exiua.routeoptimizer.model.ResultSummary;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -15,6 +16,9 @@ public class JobStatusResponseDTO {
     @JsonProperty("status")
     private String status;
     
+    @JsonProperty("version")
+    private Long version; // Changes on every status update; also sent as the ETag header
+    
     @JsonProperty("message")
     private String message;
     
@@ -39,6 +43,12 @@ public class JobStatusResponseDTO {
     @JsonProperty("result")
     private Object result; // Will contain the actual route optimization result when completed
     
+    @JsonProperty("result_summary")
+    private ResultSummary resultSummary;
+    
+    @JsonProperty("partial_result")
+    private Object partialResult; // Best route found so far while the solver is still running
+    
     @JsonProperty("error")
     private ErrorDetails error;
 
@@ -88,6 +98,9 @@ public class JobStatusResponseDTO {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
     
@@ -114,6 +127,12 @@ public class JobStatusResponseDTO {
     public Object getResult() { return result; }
     public void setResult(Object result) { this.result = result; }
     
+    public ResultSummary getResultSummary() { return resultSummary; }
+    public void setResultSummary(ResultSummary resultSummary) { this.resultSummary = resultSummary; }
+    
+    public Object getPartialResult() { return partialResult; }
+    public void setPartialResult(Object partialResult) { this.partialResult = partialResult; }
+    
     public ErrorDetails getError() { return error; }
     public void setError(ErrorDetails error) { this.error = error; }
 }
\ No newline at end of file
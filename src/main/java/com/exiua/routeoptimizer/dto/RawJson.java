@@ -0,0 +1,49 @@
+package com.exiua.routeoptimizer.dto;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Already-serialized JSON document written verbatim into a response with
+ * {@link JsonGenerator#writeRawValue(String)}: the stored result is neither parsed into a tree
+ * nor serialized again. The content is trusted to be valid JSON, as it comes from the job's own
+ * stored result.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public final class RawJson {
+
+    private final String json;
+
+    private RawJson(String json) {
+        this.json = json;
+    }
+
+    public static RawJson of(String json) {
+        return json != null ? new RawJson(json) : null;
+    }
+
+    public String getValue() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    static final class Serializer extends StdSerializer<RawJson> {
+
+        Serializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
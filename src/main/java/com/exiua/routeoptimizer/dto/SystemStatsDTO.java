@@ -1,5 +1,10 @@
 package com.exiua.routeoptimizer.dto;
 
+import java.util.List;
+
+import com.exiua.routeoptimizer.client.ConnectionPoolMetricsRegistrar;
+import com.exiua.routeoptimizer.client.RouteProcessingClient;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +21,29 @@ public class SystemStatsDTO {
     private int totalJobsSubmitted;
     private int totalJobsCompleted;
     private int totalJobsFailed;
+    private int totalJobsCoalesced;
     private double successRate;
+    private int queuedJobs;
+    private int queuedUsers;
+    private int maxQueueSize;
+    private int capacityUnits;
+    private int usedCapacityUnits;
+    private long projectedWaitSeconds;
+    private long downgradedJobs;
+    private long shedJobs;
+    private int cacheEntries;
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long cacheInvalidations;
+    private long solverRequests;
+    private long hedgedRequests;
+    private long hedgeWins;
+    private long hedgeDelayMs;
+    private long solverRequestBytes;
+    private long solverRequestRawBytes;
+    private long solverResponseBytes;
+    private List<RouteProcessingClient.EndpointStats> solverEndpoints;
+    private List<ConnectionPoolMetricsRegistrar.PoolStats> httpPools;
 
 }
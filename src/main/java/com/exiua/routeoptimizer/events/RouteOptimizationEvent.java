@@ -12,6 +12,7 @@ public class RouteOptimizationEvent {
     
     public enum EventType {
         OPTIMIZATION_REQUESTED,
+        OPTIMIZATION_DISPATCHED,
         OPTIMIZATION_STARTED,
         OPTIMIZATION_PROGRESS,
         OPTIMIZATION_COMPLETED,
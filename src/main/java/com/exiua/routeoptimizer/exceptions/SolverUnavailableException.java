@@ -0,0 +1,22 @@
+package com.exiua.routeoptimizer.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SolverUnavailableException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public SolverUnavailableException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    /**
+     * true when every instance is only at its concurrency limit; false when the circuit is open
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
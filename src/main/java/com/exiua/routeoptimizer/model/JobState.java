@@ -0,0 +1,141 @@
+package com.exiua.routeoptimizer.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Estado en memoria de un trabajo de optimización (sin las columnas LOB de request)
+ */
+public class JobState {
+
+    private final String jobId;
+    private final String userId;
+    private final String routeId;
+    private final LocalDateTime createdAt;
+
+    private volatile OptimizationJob.JobStatus status;
+    private volatile Integer progressPercentage;
+    private volatile LocalDateTime updatedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile LocalDateTime estimatedCompletionTime;
+    private volatile String errorMessage;
+    // Resultado JSON que se incrusta tal cual en las respuestas, sin volver a analizarlo
+    private volatile String resultJson;
+    // true si el trabajo tiene resultado aunque no se conserve en memoria (por tamaño)
+    private volatile boolean resultStored;
+    private volatile ResultSummary resultSummary;
+    // Mejor ruta parcial reportada por el solver mientras el trabajo está en proceso
+    private volatile JsonNode partialResult;
+    // Versión del estado: marca de tiempo en milisegundos del último cambio, creciente en cada cambio
+    private final AtomicLong version;
+
+    public JobState(String jobId, String userId, String routeId, LocalDateTime createdAt) {
+        this.jobId = jobId;
+        this.userId = userId;
+        this.routeId = routeId;
+        this.createdAt = createdAt;
+        this.status = OptimizationJob.JobStatus.PENDING;
+        this.progressPercentage = 0;
+        this.updatedAt = createdAt;
+        this.version = new AtomicLong(toEpochMilli(createdAt));
+    }
+
+    public static JobState fromJob(OptimizationJob job) {
+        JobState state = new JobState(job.getJobId(), job.getUserId(), job.getRouteId(), job.getCreatedAt());
+        state.status = job.getStatus();
+        state.progressPercentage = job.getProgressPercentage();
+        state.updatedAt = job.getUpdatedAt();
+        state.completedAt = job.getCompletedAt();
+        state.estimatedCompletionTime = job.getEstimatedCompletionTime();
+        state.errorMessage = job.getErrorMessage();
+        state.resultJson = job.getResultData();
+        state.resultStored = job.getResultData() != null;
+        state.resultSummary = job.getResultSummary();
+        state.version.set(Math.max(state.version.get(), toEpochMilli(job.getUpdatedAt())));
+        return state;
+    }
+
+    /**
+     * Estado de un trabajo leído como proyección sin columnas LOB: el resultado queda solo en la base de datos
+     */
+    public static JobState fromStatusView(JobStatusView view) {
+        JobState state = new JobState(view.getJobId(), view.getUserId(), view.getRouteId(), view.getCreatedAt());
+        state.status = view.getStatus();
+        state.progressPercentage = view.getProgressPercentage();
+        state.updatedAt = view.getUpdatedAt();
+        state.completedAt = view.getCompletedAt();
+        state.estimatedCompletionTime = view.getEstimatedCompletionTime();
+        state.errorMessage = view.getErrorMessage();
+        state.resultSummary = ResultSummary.ofColumns(view.getTotalDistanceKm(), view.getTotalTimeMinutes(),
+            view.getOptimizationScore(), view.getAlgorithm(), view.getStopCount(), view.getResultSizeBytes());
+        state.resultStored = state.resultSummary != null;
+        state.version.set(Math.max(state.version.get(), toEpochMilli(view.getUpdatedAt())));
+        return state;
+    }
+
+    /**
+     * Registrar un cambio del estado; la versión avanza al menos en uno
+     */
+    public long markChanged() {
+        return version.updateAndGet(current -> Math.max(current + 1, System.currentTimeMillis()));
+    }
+
+    public long getVersion() { return version.get(); }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    public boolean isTerminal() {
+        return status == OptimizationJob.JobStatus.COMPLETED
+            || status == OptimizationJob.JobStatus.FAILED
+            || status == OptimizationJob.JobStatus.CANCELLED;
+    }
+
+    public String getJobId() { return jobId; }
+
+    public String getUserId() { return userId; }
+
+    public String getRouteId() { return routeId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public OptimizationJob.JobStatus getStatus() { return status; }
+    public void setStatus(OptimizationJob.JobStatus status) {
+        this.status = status;
+        this.updatedAt = LocalDateTime.now();
+        if (isTerminal()) {
+            this.completedAt = this.updatedAt;
+        }
+    }
+
+    public Integer getProgressPercentage() { return progressPercentage; }
+    public void setProgressPercentage(Integer progressPercentage) { this.progressPercentage = progressPercentage; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+
+    public LocalDateTime getEstimatedCompletionTime() { return estimatedCompletionTime; }
+    public void setEstimatedCompletionTime(LocalDateTime estimatedCompletionTime) {
+        this.estimatedCompletionTime = estimatedCompletionTime;
+    }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public String getResultJson() { return resultJson; }
+    public void setResultJson(String resultJson) { this.resultJson = resultJson; }
+
+    public boolean isResultStored() { return resultStored; }
+    public void setResultStored(boolean resultStored) { this.resultStored = resultStored; }
+
+    public ResultSummary getResultSummary() { return resultSummary; }
+    public void setResultSummary(ResultSummary resultSummary) { this.resultSummary = resultSummary; }
+
+    public JsonNode getPartialResult() { return partialResult; }
+    public void setPartialResult(JsonNode partialResult) { this.partialResult = partialResult; }
+}
@@ -0,0 +1,42 @@
+package com.exiua.routeoptimizer.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de un trabajo con sus columnas de estado y resumen, sin las columnas LOB
+ * (request_data, result_data), para consultas de estado en bloque
+ */
+public interface JobStatusView {
+
+    String getJobId();
+
+    OptimizationJob.JobStatus getStatus();
+
+    String getUserId();
+
+    String getRouteId();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getCompletedAt();
+
+    LocalDateTime getEstimatedCompletionTime();
+
+    Integer getProgressPercentage();
+
+    String getErrorMessage();
+
+    Double getTotalDistanceKm();
+
+    Integer getTotalTimeMinutes();
+
+    Double getOptimizationScore();
+
+    String getAlgorithm();
+
+    Integer getStopCount();
+
+    Long getResultSizeBytes();
+}
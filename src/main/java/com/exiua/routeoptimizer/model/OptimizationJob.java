@@ -47,6 +47,25 @@ public class OptimizationJob {
     @Column(name = "result_data")
     private String resultData;
     
+    // Resumen del resultado (ver ResultSummary)
+    @Column(name = "total_distance_km")
+    private Double totalDistanceKm;
+    
+    @Column(name = "total_time_minutes")
+    private Integer totalTimeMinutes;
+    
+    @Column(name = "optimization_score")
+    private Double optimizationScore;
+    
+    @Column(name = "algorithm")
+    private String algorithm;
+    
+    @Column(name = "stop_count")
+    private Integer stopCount;
+    
+    @Column(name = "result_size_bytes")
+    private Long resultSizeBytes;
+    
     @Column(name = "error_message")
     private String errorMessage;
     
@@ -88,7 +107,7 @@ public class OptimizationJob {
     public void setStatus(JobStatus status) { 
         this.status = status;
         this.updatedAt = LocalDateTime.now();
-        if (status == JobStatus.COMPLETED || status == JobStatus.FAILED) {
+        if (status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED) {
             this.completedAt = LocalDateTime.now();
         }
     }
@@ -118,6 +137,22 @@ public class OptimizationJob {
     public String getResultData() { return resultData; }
     public void setResultData(String resultData) { this.resultData = resultData; }
     
+    /**
+     * Resumen del resultado leído de sus columnas; null si el trabajo no tiene resultado
+     */
+    public ResultSummary getResultSummary() {
+        return ResultSummary.ofColumns(totalDistanceKm, totalTimeMinutes, optimizationScore, algorithm, stopCount,
+            resultSizeBytes);
+    }
+    public void setResultSummary(ResultSummary summary) {
+        this.totalDistanceKm = summary != null ? summary.totalDistanceKm() : null;
+        this.totalTimeMinutes = summary != null ? summary.totalTimeMinutes() : null;
+        this.optimizationScore = summary != null ? summary.optimizationScore() : null;
+        this.algorithm = summary != null ? summary.algorithm() : null;
+        this.stopCount = summary != null ? summary.stopCount() : null;
+        this.resultSizeBytes = summary != null ? summary.sizeBytes() : null;
+    }
+    
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
     
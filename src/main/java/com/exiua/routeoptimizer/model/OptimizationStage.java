@@ -0,0 +1,25 @@
+package com.exiua.routeoptimizer.model;
+
+/**
+ * Etapas del pipeline de optimización.
+ * El progreso de cada etapa se reporta únicamente cuando la etapa termina.
+ */
+public enum OptimizationStage {
+    VALIDATE("Validando datos de entrada", 10),
+    ENRICH("Preparando datos de POIs", 25),
+    MATRIX("Calculando matriz de distancias", 40),
+    SOLVE("Optimizando secuencia de POIs", 90),
+    PERSIST("Guardando resultado", 100);
+
+    private final String description;
+    private final int progressOnCompletion;
+
+    OptimizationStage(String description, int progressOnCompletion) {
+        this.description = description;
+        this.progressOnCompletion = progressOnCompletion;
+    }
+
+    public String getDescription() { return description; }
+
+    public int getProgressOnCompletion() { return progressOnCompletion; }
+}
@@ -0,0 +1,27 @@
+package com.exiua.routeoptimizer.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Campos resumen de un resultado de optimización, extraídos al recibirlo y guardados en
+ * columnas propias para no tener que analizar el JSON completo al consultarlos
+ */
+public record ResultSummary(
+    @JsonProperty("total_distance_km") Double totalDistanceKm,
+    @JsonProperty("total_time_minutes") Integer totalTimeMinutes,
+    @JsonProperty("optimization_score") Double optimizationScore,
+    @JsonProperty("algorithm") String algorithm,
+    @JsonProperty("stop_count") Integer stopCount,
+    @JsonProperty("size_bytes") Long sizeBytes) {
+
+    /**
+     * Resumen a partir de sus columnas; null si el trabajo no tiene resultado (sin tamaño)
+     */
+    public static ResultSummary ofColumns(Double totalDistanceKm, Integer totalTimeMinutes, Double optimizationScore,
+                                          String algorithm, Integer stopCount, Long sizeBytes) {
+        if (sizeBytes == null) {
+            return null;
+        }
+        return new ResultSummary(totalDistanceKm, totalTimeMinutes, optimizationScore, algorithm, stopCount, sizeBytes);
+    }
+}
@@ -30,6 +30,9 @@ public class RouteOptimizationRequest {
     
     @JsonProperty("constraints")
     private RouteConstraints constraints;
+    
+    @JsonProperty("deadlineSeconds")
+    private Integer deadlineSeconds; // seconds from submission; defaults to the user's tier deadline
 
     // Constructors
     public RouteOptimizationRequest() {}
@@ -179,4 +182,7 @@ public class RouteOptimizationRequest {
     
     public RouteConstraints getConstraints() { return constraints; }
     public void setConstraints(RouteConstraints constraints) { this.constraints = constraints; }
+    
+    public Integer getDeadlineSeconds() { return deadlineSeconds; }
+    public void setDeadlineSeconds(Integer deadlineSeconds) { this.deadlineSeconds = deadlineSeconds; }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.exiua.routeoptimizer.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,16 +10,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.exiua.routeoptimizer.model.JobStatusView;
 import com.exiua.routeoptimizer.model.OptimizationJob;
 
 @Repository
-public interface OptimizationJobRepository extends JpaRepository<OptimizationJob, String> {
+public interface OptimizationJobRepository extends JpaRepository<OptimizationJob, String>, OptimizationJobRepositoryCustom {
     
     /**
      * Find jobs by user ID
      */
     List<OptimizationJob> findByUserIdOrderByCreatedAtDesc(String userId);
     
+    /**
+     * Find the status columns of several jobs in one query, without the LOB columns
+     */
+    List<JobStatusView> findStatusViewsByJobIdIn(Collection<String> jobIds);
+    
     /**
      * Find jobs by status
      */
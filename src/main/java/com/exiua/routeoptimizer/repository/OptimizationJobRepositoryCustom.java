@@ -0,0 +1,31 @@
+package com.exiua.routeoptimizer.repository;
+
+import java.io.Reader;
+import java.util.List;
+
+import com.exiua.routeoptimizer.model.OptimizationJob;
+import com.exiua.routeoptimizer.model.ResultSummary;
+
+public interface OptimizationJobRepositoryCustom {
+
+    /**
+     * Insert new jobs in a single JDBC batch (no per-entity existence check)
+     */
+    void insertAll(List<OptimizationJob> jobs);
+
+    /**
+     * Stream a result into result_data (no full String in memory) together with its summary columns.
+     * Rows already in a terminal state are left untouched.
+     *
+     * @return true if the row was updated
+     */
+    boolean storeResult(String jobId, Reader resultData, ResultSummary summary);
+
+    /**
+     * Copy result_data from another job's row inside the database, together with the given summary
+     *
+     * @return true if the row was updated; false if the job is already terminal or the source row
+     *         no longer holds a result
+     */
+    boolean copyResult(String jobId, String sourceJobId, ResultSummary summary);
+}
@@ -0,0 +1,114 @@
+package com.exiua.routeoptimizer.repository;
+
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.exiua.routeoptimizer.model.OptimizationJob;
+import com.exiua.routeoptimizer.model.ResultSummary;
+
+/**
+ * JDBC implementation of {@link OptimizationJobRepositoryCustom}.
+ * saveAll() would merge each entity (job IDs are assigned, so each one is looked up first);
+ * a plain batched INSERT avoids those extra round trips for freshly created jobs.
+ * Large results are written as character streams so they never exist as a single String.
+ */
+public class OptimizationJobRepositoryImpl implements OptimizationJobRepositoryCustom {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO optimization_jobs (job_id, status, created_at, updated_at, user_id, route_id, " +
+        "request_data, progress_percentage, estimated_completion_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SUMMARY_COLUMNS =
+        "total_distance_km = ?, total_time_minutes = ?, optimization_score = ?, algorithm = ?, " +
+        "stop_count = ?, result_size_bytes = ?, updated_at = ? ";
+
+    private static final String STORE_RESULT_SQL =
+        "UPDATE optimization_jobs SET result_data = ?, " + SUMMARY_COLUMNS +
+        "WHERE job_id = ? AND status NOT IN ('COMPLETED', 'FAILED', 'CANCELLED')";
+
+    // Only copies when the source row still holds a result; otherwise no row is updated
+    private static final String COPY_RESULT_SQL =
+        "UPDATE optimization_jobs SET result_data = " +
+        "(SELECT source.result_data FROM optimization_jobs source WHERE source.job_id = ?), " + SUMMARY_COLUMNS +
+        "WHERE job_id = ? AND status NOT IN ('COMPLETED', 'FAILED', 'CANCELLED') " +
+        "AND EXISTS (SELECT 1 FROM optimization_jobs source WHERE source.job_id = ? AND source.result_data IS NOT NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OptimizationJobRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<OptimizationJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OptimizationJob job = jobs.get(i);
+                ps.setString(1, job.getJobId());
+                ps.setString(2, job.getStatus().name());
+                ps.setTimestamp(3, toTimestamp(job.getCreatedAt()));
+                ps.setTimestamp(4, toTimestamp(job.getUpdatedAt()));
+                ps.setString(5, job.getUserId());
+                ps.setString(6, job.getRouteId());
+                ps.setString(7, job.getRequestData());
+                ps.setInt(8, job.getProgressPercentage() != null ? job.getProgressPercentage() : 0);
+                ps.setTimestamp(9, toTimestamp(job.getEstimatedCompletionTime()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return jobs.size();
+            }
+        });
+    }
+
+    @Override
+    public boolean storeResult(String jobId, Reader resultData, ResultSummary summary) {
+        return jdbcTemplate.update(STORE_RESULT_SQL, ps -> {
+            ps.setCharacterStream(1, resultData);
+            int next = setSummary(ps, 2, summary);
+            ps.setString(next, jobId);
+        }) > 0;
+    }
+
+    @Override
+    public boolean copyResult(String jobId, String sourceJobId, ResultSummary summary) {
+        return jdbcTemplate.update(COPY_RESULT_SQL, ps -> {
+            ps.setString(1, sourceJobId);
+            int next = setSummary(ps, 2, summary);
+            ps.setString(next, jobId);
+            ps.setString(next + 1, sourceJobId);
+        }) > 0;
+    }
+
+    /**
+     * Bind the summary columns (and updated_at) starting at the given index; returns the next index
+     */
+    private static int setSummary(PreparedStatement ps, int index, ResultSummary summary) throws SQLException {
+        ps.setObject(index, summary.totalDistanceKm(), Types.DOUBLE);
+        ps.setObject(index + 1, summary.totalTimeMinutes(), Types.INTEGER);
+        ps.setObject(index + 2, summary.optimizationScore(), Types.DOUBLE);
+        ps.setString(index + 3, summary.algorithm());
+        ps.setObject(index + 4, summary.stopCount(), Types.INTEGER);
+        ps.setObject(index + 5, summary.sizeBytes(), Types.BIGINT);
+        ps.setTimestamp(index + 6, Timestamp.valueOf(LocalDateTime.now()));
+        return index + 7;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
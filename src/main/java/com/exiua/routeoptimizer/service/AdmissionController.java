@@ -0,0 +1,537 @@
+package com.exiua.routeoptimizer.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.exiua.routeoptimizer.config.FairSchedulingConfigurationProperties;
+import com.exiua.routeoptimizer.exceptions.AdmissionRejectedException;
+import com.exiua.routeoptimizer.service.JobLatencyModel.SolverMode;
+
+/**
+ * Control de admisión ponderado por costo.
+ * Cada trabajo consume unidades de capacidad según su costo estimado (crece de forma
+ * superlineal con la cantidad de POIs). Los trabajos que no caben esperan en una cola
+ * acotada; cuando la cola está llena la solicitud se rechaza con un Retry-After calculado.
+ * La cola es justa por usuario (deficit round-robin ponderado por tier), de modo que un
+ * cliente que envía muchos trabajos no retrasa a los demás.
+ * Cada trabajo tiene un plazo (pedido por el cliente o derivado de su tier): entre los
+ * usuarios con déficit suficiente se despacha primero el plazo más próximo (EDF), y los
+ * trabajos que ya no pueden cumplir su plazo se degradan al solver local o se descartan.
+ * La duración esperada de un trabajo sale del {@link JobLatencyModel} (duraciones observadas
+ * para su tamaño) y, mientras no hay muestras suficientes, de la media móvil por unidad de costo.
+ * Un trabajo solo se considera fuera de plazo por su duración cuando el modelo tiene muestras;
+ * con la estimación inicial únicamente cuenta el plazo ya vencido. Los trabajos degradados
+ * ocupan un cupo propio y acotado de ejecuciones locales.
+ */
+@Service
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    // Peso de la última observación en la media móvil de duración de trabajos
+    private static final double DURATION_SMOOTHING = 0.2;
+
+    // Plazo antes que secuencia de llegada: EDF dentro de la cola de cada usuario
+    private static final Comparator<AdmissionTicket> EARLIEST_DEADLINE_FIRST =
+        Comparator.<AdmissionTicket>comparingLong(ticket -> ticket.deadlineMillis)
+            .thenComparingLong(ticket -> ticket.sequence);
+
+    @Value("${optimization.max-concurrent-jobs:1000}")
+    private int maxConcurrentJobs;
+
+    @Value("${optimization.admission.capacity-units:40}")
+    private int capacityUnits;
+
+    @Value("${optimization.admission.max-queue-size:200}")
+    private int maxQueueSize;
+
+    @Value("${optimization.admission.reference-poi-count:10}")
+    private int referencePoiCount;
+
+    @Value("${optimization.admission.cost-exponent:1.5}")
+    private double costExponent;
+
+    // Duración media por unidad de costo (un trabajo del tamaño de referencia cuesta 1)
+    @Value("${optimization.admission.initial-job-seconds:30}")
+    private double averageUnitSeconds;
+
+    // downgrade: resolver con el solver local; shed: descartar el trabajo
+    @Value("${optimization.deadline.miss-policy:downgrade}")
+    private String deadlineMissPolicy;
+
+    @Value("${optimization.deadline.max-seconds:86400}")
+    private int maxDeadlineSeconds;
+
+    // Trabajos degradados al solver local en ejecución a la vez
+    @Value("${optimization.deadline.max-downgraded-jobs:20}")
+    private int maxDowngradedJobs;
+
+    private final FairSchedulingConfigurationProperties fairScheduling;
+    private final JobLatencyModel latencyModel;
+    
+    // Colas por usuario y ronda de usuarios con trabajos en espera (deficit round-robin)
+    private final Map<String, UserQueue> userQueues = new HashMap<>();
+    private final ArrayDeque<UserQueue> activeUsers = new ArrayDeque<>();
+    private final Map<String, AdmissionTicket> queued = new HashMap<>();
+    private final Map<String, AdmissionTicket> inFlight = new HashMap<>();
+    private final Map<String, AdmissionTicket> downgradedInFlight = new HashMap<>();
+    private int inFlightCost;
+    private int queuedCost;
+    private long sequence;
+    private long downgradedJobs;
+    private long shedJobs;
+
+    public AdmissionController(FairSchedulingConfigurationProperties fairScheduling, JobLatencyModel latencyModel) {
+        this.fairScheduling = fairScheduling;
+        this.latencyModel = latencyModel;
+    }
+
+    /**
+     * Costo estimado de un trabajo: (POIs / referencia) ^ exponente, mínimo 1 y como
+     * máximo la capacidad total (un trabajo enorme puede ejecutarse solo).
+     */
+    public int estimateCost(int poiCount) {
+        double relative = Math.max(poiCount, 1) / (double) Math.max(referencePoiCount, 1);
+        int cost = (int) Math.ceil(Math.pow(relative, costExponent));
+        return Math.max(1, Math.min(cost, capacityUnits));
+    }
+
+    /**
+     * Plazo de un trabajo: el pedido por el cliente (acotado) o el de su tier
+     */
+    public Instant deadlineFor(String userId, Integer requestedSeconds) {
+        return deadlineFor(userId, requestedSeconds, Instant.now());
+    }
+
+    /**
+     * Plazo de un trabajo contado desde su creación
+     */
+    public Instant deadlineFor(String userId, Integer requestedSeconds, Instant from) {
+        int seconds = requestedSeconds != null && requestedSeconds > 0
+            ? Math.min(requestedSeconds, maxDeadlineSeconds)
+            : fairScheduling.deadlineSecondsFor(userId);
+        return from.plusSeconds(seconds);
+    }
+
+    /**
+     * Duración esperada de un trabajo con el solver completo
+     */
+    public long estimateServiceMillis(int poiCount) {
+        OptionalLong observedService = observedServiceMillis(poiCount);
+        if (observedService.isPresent()) {
+            return observedService.getAsLong();
+        }
+        synchronized (this) {
+            return (long) (estimateCost(poiCount) * averageUnitSeconds * 1000);
+        }
+    }
+
+    /**
+     * Modo de ejecución de un trabajo que empieza ahora: FULL si su duración estimada
+     * cabe antes del plazo o el modo de la política de incumplimiento si no
+     */
+    public DispatchMode modeForImmediateStart(int poiCount, Instant deadline) {
+        long expectedEnd = System.currentTimeMillis() + observedServiceMillis(poiCount).orElse(0L);
+        if (expectedEnd <= deadline.toEpochMilli()) {
+            return DispatchMode.FULL;
+        }
+        synchronized (this) {
+            return recordMiss();
+        }
+    }
+
+    /**
+     * Reservar capacidad para un trabajo: se admite de inmediato si cabe, se encola si
+     * hay lugar en la cola o se rechaza con {@link AdmissionRejectedException}.
+     * Los límites de la cola se aplican antes que el plazo. Si la espera proyectada impide cumplir
+     * el plazo se decide desde ya: con la política downgrade el ticket se entrega degradado
+     * (ocupando un cupo de ejecución local) y con shed, o sin cupo local, se rechaza.
+     */
+    public AdmissionTicket reserve(String jobId, String userId, int poiCount, Instant deadline) {
+        // Los percentiles del modelo de latencia se consultan fuera del lock de admisión
+        return reserve(jobId, userId, poiCount, deadline, observedServiceMillis(poiCount));
+    }
+
+    private synchronized AdmissionTicket reserve(String jobId, String userId, int poiCount, Instant deadline,
+                                                 OptionalLong observedService) {
+        AdmissionTicket ticket = new AdmissionTicket(jobId, queueKey(userId), poiCount, estimateCost(poiCount),
+            deadline.toEpochMilli(), sequence++);
+        boolean startsNow = queued.isEmpty() && fits(ticket);
+
+        if (!startsNow) {
+            UserQueue userQueue = userQueues.get(ticket.userKey);
+            int userQueued = userQueue != null ? userQueue.tickets.size() : 0;
+            if (queued.size() >= maxQueueSize || userQueued >= fairScheduling.getMaxQueuedPerUser()) {
+                long retryAfter = projectedWaitSeconds(ticket.cost);
+                logger.warn("Cola de admisión llena ({} total, {} del usuario {}), rechazando job {} (Retry-After {}s)", 
+                    queued.size(), userQueued, userId, jobId, retryAfter);
+                throw new AdmissionRejectedException(
+                    "Sistema ocupado. Cola de optimización llena, intente nuevamente más tarde.", retryAfter);
+            }
+        }
+
+        long projectedStart = System.currentTimeMillis() + (startsNow ? 0 : edfWaitMillis(ticket));
+        if (observedService.isPresent() && projectedStart + observedService.getAsLong() > ticket.deadlineMillis) {
+            if (!isShedPolicy() && downgradedInFlight.size() >= maxDowngradedJobs) {
+                long retryAfter = projectedWaitSeconds(ticket.cost);
+                logger.warn("Sin cupo para degradar el job {} ({} degradados en curso), se rechaza", 
+                    jobId, downgradedInFlight.size());
+                throw new AdmissionRejectedException(
+                    "Sistema ocupado. No es posible cumplir el plazo solicitado, intente nuevamente más tarde.", 
+                    retryAfter);
+            }
+            ticket.mode = recordMiss();
+            if (ticket.mode == DispatchMode.SHED) {
+                logger.warn("Job {} no puede cumplir su plazo, se descarta en la admisión", jobId);
+                throw new AdmissionRejectedException(
+                    "No es posible completar la optimización dentro del plazo solicitado.", 
+                    projectedWaitSeconds(ticket.cost));
+            }
+            downgradedInFlight.put(jobId, ticket);
+            logger.info("Job {} no puede cumplir su plazo con el solver completo, se degrada al solver local", jobId);
+            return ticket;
+        }
+
+        if (startsNow) {
+            admit(ticket);
+            return ticket;
+        }
+
+        enqueue(ticket);
+        logger.info("Job {} en cola de admisión (usuario {}, costo {}, {} en cola)", 
+            jobId, userId, ticket.cost, queued.size());
+        return ticket;
+    }
+
+    /**
+     * Asociar la tarea de arranque al ticket; se ejecuta ahora si ya fue admitido
+     * o cuando se libere capacidad si está en cola.
+     */
+    public void start(AdmissionTicket ticket, Runnable task) {
+        boolean runNow;
+        synchronized (this) {
+            ticket.task = task;
+            runNow = (ticket.admitted || ticket.mode != DispatchMode.FULL) && !ticket.started;
+            ticket.started = ticket.started || runNow;
+        }
+        if (runNow) {
+            task.run();
+        }
+    }
+
+    /**
+     * Liberar la capacidad de un trabajo (terminado, fallido o descartado) y despachar
+     * los trabajos en cola que quepan. Solo los trabajos completados con éxito actualizan la
+     * duración media: los que fallan o se cancelan terminan antes y la subestimarían.
+     */
+    public void release(String jobId, boolean succeeded) {
+        List<AdmissionTicket> toStart;
+        synchronized (this) {
+            downgradedInFlight.remove(jobId);
+            AdmissionTicket ticket = inFlight.remove(jobId);
+            if (ticket != null) {
+                inFlightCost -= ticket.cost;
+                if (succeeded) {
+                    double unitSeconds = (System.nanoTime() - ticket.admittedAtNanos) / 1_000_000_000.0 / ticket.cost;
+                    averageUnitSeconds = DURATION_SMOOTHING * unitSeconds + (1 - DURATION_SMOOTHING) * averageUnitSeconds;
+                }
+            } else {
+                removeQueued(jobId);
+            }
+            // Los trabajos que ya no llegan a su plazo no deben ocupar la capacidad liberada
+            toStart = collectMissedDeadlines();
+            toStart.addAll(dispatchQueued());
+        }
+        toStart.forEach(ticket -> ticket.task.run());
+    }
+
+    /**
+     * Retirar de la cola los trabajos que, aun empezando ahora, no cumplirían su plazo
+     */
+    @Scheduled(fixedDelayString = "${optimization.deadline.check-interval-ms:1000}")
+    public void enforceDeadlines() {
+        List<Integer> poiCounts;
+        synchronized (this) {
+            if (queued.isEmpty()) {
+                return;
+            }
+            poiCounts = queued.values().stream().map(ticket -> ticket.poiCount).distinct().toList();
+        }
+        // Duración esperada por tamaño calculada fuera del lock; un trabajo encolado entretanto
+        // se evalúa en la siguiente pasada
+        Map<Integer, Long> expectedService = new HashMap<>();
+        for (int poiCount : poiCounts) {
+            observedServiceMillis(poiCount).ifPresent(millis -> expectedService.put(poiCount, millis));
+        }
+        if (expectedService.isEmpty()) {
+            return;
+        }
+        List<AdmissionTicket> toStart;
+        synchronized (this) {
+            toStart = collectMissedDeadlines(expectedService);
+        }
+        toStart.forEach(ticket -> ticket.task.run());
+    }
+
+    /**
+     * Retirar un trabajo de la cola antes de que sea admitido
+     */
+    public synchronized boolean cancelQueued(String jobId) {
+        return removeQueued(jobId);
+    }
+
+    public synchronized boolean isQueued(String jobId) {
+        return queued.containsKey(jobId);
+    }
+
+    public synchronized AdmissionSnapshot snapshot() {
+        return new AdmissionSnapshot(inFlight.size(), maxConcurrentJobs, inFlightCost, capacityUnits,
+            queued.size(), maxQueueSize, queuedCost, activeUsers.size(), projectedWaitSeconds(1),
+            downgradedJobs, shedJobs);
+    }
+
+    /**
+     * Espera proyectada: trabajo pendiente (unidades de costo) por duración media de
+     * un trabajo, repartido entre las unidades de capacidad
+     */
+    private long projectedWaitSeconds(int additionalCost) {
+        int pendingCost = queuedCost + Math.max(0, inFlightCost + additionalCost - capacityUnits);
+        if (pendingCost == 0 && inFlight.size() < maxConcurrentJobs) {
+            return 0;
+        }
+        double seconds = Math.max(pendingCost, 1) * averageUnitSeconds / Math.max(capacityUnits, 1);
+        return Math.max(1, (long) Math.ceil(seconds));
+    }
+
+    /**
+     * Espera proyectada bajo EDF: solo cuentan los trabajos en cola con plazo no posterior
+     */
+    private long edfWaitMillis(AdmissionTicket ticket) {
+        int aheadCost = Math.max(0, inFlightCost + ticket.cost - capacityUnits);
+        for (AdmissionTicket other : queued.values()) {
+            if (other.deadlineMillis <= ticket.deadlineMillis) {
+                aheadCost += other.cost;
+            }
+        }
+        return (long) (aheadCost * averageUnitSeconds * 1000 / Math.max(capacityUnits, 1));
+    }
+
+    private long expectedServiceMillis(int poiCount, int cost) {
+        return observedServiceMillis(poiCount).orElse((long) (cost * averageUnitSeconds * 1000));
+    }
+
+    /**
+     * Duración observada con el solver completo; vacía hasta que el modelo reúne muestras
+     * (antes de eso la estimación por costo no basta para degradar ni descartar un trabajo)
+     */
+    private OptionalLong observedServiceMillis(int poiCount) {
+        return latencyModel.expectedMillis(SolverMode.REMOTE, poiCount, null);
+    }
+
+    private boolean isShedPolicy() {
+        return "shed".equalsIgnoreCase(deadlineMissPolicy);
+    }
+
+    private DispatchMode recordMiss() {
+        if (isShedPolicy()) {
+            shedJobs++;
+            return DispatchMode.SHED;
+        }
+        downgradedJobs++;
+        return DispatchMode.DOWNGRADED;
+    }
+
+    private List<AdmissionTicket> collectMissedDeadlines(Map<Integer, Long> expectedService) {
+        List<AdmissionTicket> missed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (AdmissionTicket ticket : List.copyOf(queued.values())) {
+            Long serviceMillis = expectedService.get(ticket.poiCount);
+            if (serviceMillis == null || now + serviceMillis <= ticket.deadlineMillis) {
+                continue;
+            }
+            if (!isShedPolicy() && downgradedInFlight.size() >= maxDowngradedJobs) {
+                // Sin cupo local sigue en cola y se ejecuta con el solver completo al liberarse capacidad
+                continue;
+            }
+            removeQueued(ticket.jobId);
+            ticket.mode = recordMiss();
+            if (ticket.mode == DispatchMode.DOWNGRADED) {
+                downgradedInFlight.put(ticket.jobId, ticket);
+            }
+            logger.warn("Job {} en cola ya no puede cumplir su plazo, modo {}", ticket.jobId, ticket.mode);
+            if (ticket.task != null && !ticket.started) {
+                ticket.started = true;
+                missed.add(ticket);
+            }
+        }
+        return missed;
+    }
+
+    private boolean fits(AdmissionTicket ticket) {
+        return inFlight.size() < maxConcurrentJobs && inFlightCost + ticket.cost <= capacityUnits;
+    }
+
+    private void admit(AdmissionTicket ticket) {
+        ticket.admitted = true;
+        ticket.admittedAtNanos = System.nanoTime();
+        inFlight.put(ticket.jobId, ticket);
+        inFlightCost += ticket.cost;
+    }
+
+    /**
+     * Deficit round-robin con EDF: entre los usuarios cuyo déficit cubre el costo de su
+     * trabajo más urgente se despacha el de plazo más próximo; cuando ninguno alcanza, cada
+     * usuario acumula quantum * peso de su tier. Si el elegido no cabe en la capacidad libre
+     * se detiene para no postergar indefinidamente a los trabajos grandes.
+     */
+    private List<AdmissionTicket> dispatchQueued() {
+        List<AdmissionTicket> toStart = new ArrayList<>();
+        while (!activeUsers.isEmpty()) {
+            UserQueue userQueue = null;
+            for (UserQueue candidate : activeUsers) {
+                AdmissionTicket candidateHead = candidate.tickets.peek();
+                if (candidate.deficit >= candidateHead.cost && (userQueue == null
+                        || EARLIEST_DEADLINE_FIRST.compare(candidateHead, userQueue.tickets.peek()) < 0)) {
+                    userQueue = candidate;
+                }
+            }
+            if (userQueue == null) {
+                for (UserQueue candidate : activeUsers) {
+                    candidate.deficit += Math.max(1, fairScheduling.getQuantum()) * candidate.weight;
+                }
+                continue;
+            }
+
+            AdmissionTicket head = userQueue.tickets.peek();
+            if (!fits(head)) {
+                break;
+            }
+
+            userQueue.tickets.poll();
+            userQueue.deficit -= head.cost;
+            queued.remove(head.jobId);
+            queuedCost -= head.cost;
+            if (userQueue.tickets.isEmpty()) {
+                deactivate(userQueue);
+            }
+
+            admit(head);
+            if (head.task != null && !head.started) {
+                head.started = true;
+                toStart.add(head);
+            }
+        }
+        return toStart;
+    }
+
+    private void enqueue(AdmissionTicket ticket) {
+        UserQueue userQueue = userQueues.computeIfAbsent(ticket.userKey,
+            key -> new UserQueue(fairScheduling.weightFor(key)));
+        if (userQueue.tickets.isEmpty()) {
+            activeUsers.addLast(userQueue);
+        }
+        userQueue.tickets.add(ticket);
+        queued.put(ticket.jobId, ticket);
+        queuedCost += ticket.cost;
+    }
+
+    private boolean removeQueued(String jobId) {
+        AdmissionTicket ticket = queued.remove(jobId);
+        if (ticket == null) {
+            return false;
+        }
+        queuedCost -= ticket.cost;
+        UserQueue userQueue = userQueues.get(ticket.userKey);
+        userQueue.tickets.remove(ticket);
+        if (userQueue.tickets.isEmpty()) {
+            deactivate(userQueue);
+        }
+        return true;
+    }
+
+    private void deactivate(UserQueue userQueue) {
+        // Un usuario sin trabajos en espera no conserva déficit acumulado
+        userQueue.deficit = 0;
+        activeUsers.remove(userQueue);
+        userQueues.values().remove(userQueue);
+    }
+
+    private String queueKey(String userId) {
+        // Sin planificación justa todos comparten una única cola FIFO
+        if (!fairScheduling.isEnabled()) {
+            return "*";
+        }
+        return userId != null ? userId : "anonymous";
+    }
+
+    /**
+     * Cómo se ejecuta un trabajo despachado: solver completo, solver local degradado o descartado
+     */
+    public enum DispatchMode { FULL, DOWNGRADED, SHED }
+
+    /**
+     * Reserva de capacidad de un trabajo
+     */
+    public static final class AdmissionTicket {
+        private final String jobId;
+        private final String userKey;
+        private final int poiCount;
+        private final int cost;
+        private final long deadlineMillis;
+        private final long sequence;
+        private boolean admitted;
+        private boolean started;
+        private long admittedAtNanos;
+        private Runnable task;
+        private volatile DispatchMode mode = DispatchMode.FULL;
+
+        private AdmissionTicket(String jobId, String userKey, int poiCount, int cost, long deadlineMillis,
+                                long sequence) {
+            this.jobId = jobId;
+            this.userKey = userKey;
+            this.poiCount = poiCount;
+            this.cost = cost;
+            this.deadlineMillis = deadlineMillis;
+            this.sequence = sequence;
+        }
+
+        public String getJobId() { return jobId; }
+
+        public int getCost() { return cost; }
+
+        public DispatchMode getMode() { return mode; }
+    }
+
+    /**
+     * Trabajos en espera de un usuario (ordenados por plazo) y su déficit acumulado
+     */
+    private static final class UserQueue {
+        private final PriorityQueue<AdmissionTicket> tickets = new PriorityQueue<>(EARLIEST_DEADLINE_FIRST);
+        private final int weight;
+        private int deficit;
+
+        private UserQueue(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Vista del estado de admisión para monitoreo
+     */
+    public record AdmissionSnapshot(int activeJobs, int maxConcurrentJobs, int inFlightCost, int capacityUnits,
+                                    int queuedJobs, int maxQueueSize, int queuedCost, int queuedUsers,
+                                    long projectedWaitSeconds, long downgradedJobs, long shedJobs) {}
+}
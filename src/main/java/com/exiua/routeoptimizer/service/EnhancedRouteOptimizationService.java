@@ -1,32 +1,57 @@
 package com.exiua.routeoptimizer.service;
 
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.exiua.routeoptimizer.client.ConnectionPoolMetricsRegistrar;
+import com.exiua.routeoptimizer.client.RouteProcessingClient;
+import com.exiua.routeoptimizer.dto.BatchJobStatusResponseDTO;
 import com.exiua.routeoptimizer.dto.JobStatusResponseDTO;
 import com.exiua.routeoptimizer.dto.JobSubmissionResponseDTO;
+import com.exiua.routeoptimizer.dto.RawJson;
 import com.exiua.routeoptimizer.dto.RouteProcessingRequestDTO;
 import com.exiua.routeoptimizer.dto.SystemStatsDTO;
+import com.exiua.routeoptimizer.exceptions.AdmissionRejectedException;
+import com.exiua.routeoptimizer.events.RouteOptimizationEvent;
+import com.exiua.routeoptimizer.exceptions.SolverUnavailableException;
+import com.exiua.routeoptimizer.model.JobState;
 import com.exiua.routeoptimizer.model.OptimizationJob;
+import com.exiua.routeoptimizer.model.OptimizationStage;
+import com.exiua.routeoptimizer.model.POI;
 import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
 import com.exiua.routeoptimizer.repository.OptimizationJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import reactor.core.publisher.Mono;
+import reactor.core.Disposable;
 import reactor.util.retry.Retry;
 
 /**
@@ -38,19 +63,25 @@ public class EnhancedRouteOptimizationService {
     
     private static final Logger logger = LoggerFactory.getLogger(EnhancedRouteOptimizationService.class);
     
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    
     private final OptimizationJobRepository jobRepository;
     private final ObjectMapper objectMapper;
-    private final WebClient webClient;
     private final Executor taskExecutor;
+    private final Executor computeExecutor;
     
     // Estadísticas de trabajos activos
     private final ConcurrentHashMap<String, CompletableFuture<Void>> activeJobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, OptimizationJobContext> activeContexts = new ConcurrentHashMap<>();
     private final AtomicInteger totalJobsSubmitted = new AtomicInteger(0);
     private final AtomicInteger totalJobsCompleted = new AtomicInteger(0);
     private final AtomicInteger totalJobsFailed = new AtomicInteger(0);
+    private final AtomicInteger totalJobsCoalesced = new AtomicInteger(0);
     
-    @Value("${route.processing.service.url:http://localhost:8086}")
-    private String routeProcessingServiceUrl;
+    // Resoluciones en curso por huella de solicitud (single-flight)
+    private final ConcurrentHashMap<String, SharedSolve> inFlightSolves = new ConcurrentHashMap<>();
+    // Líderes cancelados cuya resolución sigue en curso para los trabajos adjuntos
+    private final Set<String> detachedLeaders = ConcurrentHashMap.newKeySet();
     
     @Value("${server.base-url:http://localhost:8085}")
     private String baseUrl;
@@ -64,199 +95,819 @@ public class EnhancedRouteOptimizationService {
     @Value("${optimization.retry-attempts:3}")
     private int retryAttempts;
     
+    // local: el nodo que recibe la solicitud la ejecuta; queue: se encola para los nodos worker
+    @Value("${optimization.execution-mode:local}")
+    private String executionMode;
+    
+    // Intervalo mínimo entre eventos de progreso publicados durante una resolución en streaming
+    @Value("${route.processing.service.streaming.progress-min-interval-ms:1000}")
+    private long streamingProgressMinIntervalMs;
+    
+    // Límites del Retry-After sugerido en las consultas de estado
+    @Value("${optimization.latency-model.min-retry-after-seconds:2}")
+    private int minRetryAfterSeconds;
+    
+    @Value("${optimization.latency-model.max-retry-after-seconds:60}")
+    private int maxRetryAfterSeconds;
+    
     private final RouteOptimizationEventPublisher eventPublisher;
     private final ProcessingPOIBuilderService poiBuilderService;
+    private final JobProgressBuffer progressBuffer;
+    private final JobStateStore jobStateStore;
+    private final AdmissionController admissionController;
+    private final RequestFingerprintService fingerprintService;
+    private final OptimizationResultCache resultCache;
+    private final RouteProcessingClient routeProcessingClient;
+    private final SolverResultIngestor resultIngestor;
+    private final ConnectionPoolMetricsRegistrar connectionPoolMetrics;
+    private final JobLatencyModel latencyModel;
+    private final LocalRouteSolver localSolver;
     
     public EnhancedRouteOptimizationService(
             OptimizationJobRepository jobRepository, 
             ObjectMapper objectMapper,
             Executor taskExecutor,
+            @Qualifier("optimizationTaskExecutor") Executor computeExecutor,
             RouteOptimizationEventPublisher eventPublisher,
-            ProcessingPOIBuilderService poiBuilderService) {
+            ProcessingPOIBuilderService poiBuilderService,
+            JobProgressBuffer progressBuffer,
+            JobStateStore jobStateStore,
+            AdmissionController admissionController,
+            RequestFingerprintService fingerprintService,
+            OptimizationResultCache resultCache,
+            RouteProcessingClient routeProcessingClient,
+            ConnectionPoolMetricsRegistrar connectionPoolMetrics,
+            SolverResultIngestor resultIngestor,
+            JobLatencyModel latencyModel,
+            LocalRouteSolver localSolver) {
         this.jobRepository = jobRepository;
         this.objectMapper = objectMapper;
         this.taskExecutor = taskExecutor;
+        this.computeExecutor = computeExecutor;
         this.eventPublisher = eventPublisher;
         this.poiBuilderService = poiBuilderService;
-        this.webClient = WebClient.builder()
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
-            .build();
+        this.progressBuffer = progressBuffer;
+        this.jobStateStore = jobStateStore;
+        this.admissionController = admissionController;
+        this.fingerprintService = fingerprintService;
+        this.resultCache = resultCache;
+        this.routeProcessingClient = routeProcessingClient;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.resultIngestor = resultIngestor;
+        this.latencyModel = latencyModel;
+        this.localSolver = localSolver;
     }
     
     /**
-     * Enviar solicitud de optimización con manejo de concurrencia mejorado
+     * Enviar solicitud de optimización con manejo de concurrencia mejorado.
+     * La admisión se pondera por costo (cantidad de POIs): si no hay capacidad el trabajo
+     * queda PENDING en la cola de admisión y, si la cola está llena, se lanza
+     * {@link AdmissionRejectedException} (429 con Retry-After).
      */
     public JobSubmissionResponseDTO submitOptimizationRequest(RouteOptimizationRequest request) {
+        PendingSubmission submission = prepareSubmission(request);
+        
         try {
-            // Verificar límite de trabajos concurrentes
-            if (activeJobs.size() >= maxConcurrentJobs) {
-                logger.warn("Límite de trabajos concurrentes alcanzado: {}", maxConcurrentJobs);
-                throw new RuntimeException("Sistema ocupado. Demasiados trabajos en procesamiento. Intente más tarde.");
-            }
+            // Crear trabajo en base de datos
+            jobRepository.save(submission.job);
+            registerLocalState(submission.job);
+            
+            // Publicar evento de solicitud recibida
+            eventPublisher.publishOptimizationRequested(submission.job.getJobId(), request.getUserId(), request);
+            
+            return launchSubmission(submission);
             
+        } catch (Exception e) {
+            abandonSubmission(submission, e);
+            logger.error("Error enviando solicitud de optimización", e);
+            throw new RuntimeException("Error enviando solicitud de optimización: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Enviar un lote de solicitudes: un único insert en batch y publicación de eventos en bloque.
+     * Cada solicitud se admite por separado; las rechazadas o fallidas se informan en su
+     * posición sin afectar al resto del lote.
+     * 
+     * @return una respuesta por solicitud, en el mismo orden
+     */
+    public List<JobSubmissionResponseDTO> submitOptimizationRequests(List<RouteOptimizationRequest> requests) {
+        logger.info("=== NUEVO LOTE DE {} SOLICITUDES DE OPTIMIZACIÓN ===", requests.size());
+        
+        JobSubmissionResponseDTO[] responses = new JobSubmissionResponseDTO[requests.size()];
+        Map<Integer, PendingSubmission> prepared = new LinkedHashMap<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                prepared.put(i, prepareSubmission(requests.get(i)));
+            } catch (AdmissionRejectedException e) {
+                responses[i] = rejectedSubmission("REJECTED", e.getMessage(), (int) e.getRetryAfterSeconds());
+            } catch (Exception e) {
+                responses[i] = rejectedSubmission("FAILED", e.getMessage(), null);
+            }
+        }
+        
+        if (prepared.isEmpty()) {
+            return List.of(responses);
+        }
+        
+        try {
+            jobRepository.insertAll(prepared.values().stream().map(submission -> submission.job).toList());
+        } catch (Exception e) {
+            logger.error("Error guardando lote de {} trabajos: {}", prepared.size(), e.getMessage());
+            prepared.forEach((i, submission) -> {
+                abandonSubmission(submission, e);
+                responses[i] = rejectedSubmission("FAILED", "Error guardando trabajo: " + e.getMessage(), null);
+            });
+            return List.of(responses);
+        }
+        
+        Map<String, RouteOptimizationRequest> requestsByJobId = new LinkedHashMap<>();
+        prepared.values().forEach(submission -> {
+            registerLocalState(submission.job);
+            requestsByJobId.put(submission.job.getJobId(), submission.context.getRequest());
+        });
+        eventPublisher.publishOptimizationsRequested(requestsByJobId);
+        
+        prepared.forEach((i, submission) -> {
+            try {
+                responses[i] = launchSubmission(submission);
+            } catch (Exception e) {
+                logger.error("Error iniciando job {} del lote: {}", submission.job.getJobId(), e.getMessage());
+                abandonSubmission(submission, e);
+                updateJobStatusWithError(submission.job.getJobId(), OptimizationJob.JobStatus.FAILED, e.getMessage());
+                responses[i] = rejectedSubmission("FAILED", e.getMessage(), null);
+            }
+        });
+        
+        logger.info("Lote procesado: {}/{} solicitudes aceptadas", prepared.size(), requests.size());
+        return List.of(responses);
+    }
+    
+    /**
+     * Preparar un envío: resolver caché/single-flight, reservar capacidad y construir el
+     * trabajo (sin persistirlo). Lanza {@link AdmissionRejectedException} si no hay lugar.
+     */
+    private PendingSubmission prepareSubmission(RouteOptimizationRequest request) {
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        
+        // Generar job ID único
+        String jobId = UUID.randomUUID().toString();
+        Instant deadline = admissionController.deadlineFor(request.getUserId(), request.getDeadlineSeconds());
+        
+        if (isQueueMode()) {
+            // Caché, single-flight y admisión se resuelven en el nodo worker que ejecute el trabajo
+            OptimizationJobContext context = new OptimizationJobContext(jobId, request, null, null, false, 0);
+            PendingSubmission submission = new PendingSubmission(context, null, null);
+            submission.job = newJob(jobId, request, estimateCompletion(jobId, request, null));
+            logger.info("Solicitud de optimización {} ({} POIs) para ejecución en worker", jobId, poiCount);
+            return submission;
+        }
+        
+        // Un resultado en caché completa el trabajo sin resolver; si no, una solicitud idéntica
+        // a otra en curso se adjunta a su resolución (single-flight)
+        String fingerprint = fingerprintService.fingerprint(request);
+        long cacheGeneration = resultCache.currentGeneration();
+        Optional<SolvedResult> cachedResult = resultCache.get(fingerprint, request.getUserId());
+        SharedSolve sharedSolve = joinSharedSolve(fingerprint, jobId, cachedResult);
+        boolean leader = jobId.equals(sharedSolve.leaderJobId());
+        
+        // Reservar capacidad antes de persistir nada; los trabajos adjuntos no consumen capacidad
+        AdmissionController.AdmissionTicket ticket = null;
+        if (leader) {
+            try {
+                ticket = admissionController.reserve(jobId, request.getUserId(), poiCount, deadline);
+            } catch (AdmissionRejectedException e) {
+                abandonSharedSolve(fingerprint, sharedSolve, e);
+                throw e;
+            }
+        }
+        
+        OptimizationJobContext context = new OptimizationJobContext(jobId, request, fingerprint, 
+            sharedSolve.result(), leader, cacheGeneration);
+        PendingSubmission submission = new PendingSubmission(context, ticket, sharedSolve);
+        
+        try {
             logger.info("=== NUEVA SOLICITUD DE OPTIMIZACIÓN ===");
             logger.info("Route ID: {}", request.getRouteId());
             logger.info("User ID: {}", request.getUserId());
-            logger.info("Número de POIs: {}", request.getPois() != null ? request.getPois().size() : 0);
+            logger.info("Número de POIs: {}", poiCount);
             logger.info("Trabajos activos: {}/{}", activeJobs.size(), maxConcurrentJobs);
+            logger.info("Plazo: {}", deadline);
+            if (leader) {
+                logger.info("Costo de admisión: {}", ticket.getCost());
+            } else if (cachedResult.isPresent()) {
+                logger.info("Resultado disponible en caché, no se requiere resolución");
+            } else {
+                totalJobsCoalesced.incrementAndGet();
+                logger.info("Solicitud idéntica al job en curso {}, se adjunta a su resolución", 
+                    sharedSolve.leaderJobId());
+            }
             
-            // Generar job ID único
-            String jobId = UUID.randomUUID().toString();
-            totalJobsSubmitted.incrementAndGet();
+            submission.job = newJob(jobId, request, cachedResult.isPresent() 
+                ? LocalDateTime.now() : estimateCompletion(jobId, request, ticket));
+            return submission;
             
-            // Crear trabajo en base de datos
-            OptimizationJob job = new OptimizationJob(jobId, request.getUserId(), request.getRouteId());
+        } catch (Exception e) {
+            abandonSubmission(submission, e);
+            throw e;
+        }
+    }
+    
+    private OptimizationJob newJob(String jobId, RouteOptimizationRequest request, LocalDateTime estimatedCompletion) {
+        OptimizationJob job = new OptimizationJob(jobId, request.getUserId(), request.getRouteId());
+        try {
             job.setRequestData(objectMapper.writeValueAsString(request));
-            job.setEstimatedCompletionTime(LocalDateTime.now().plusMinutes(jobTimeoutMinutes));
-            jobRepository.save(job);
-            
-            // Publicar evento de solicitud recibida
-            eventPublisher.publishOptimizationRequested(jobId, request.getUserId(), request);
-            
-            // Crear respuesta
-            String pollingUrl = baseUrl + "/api/v1/jobs/" + jobId + "/status";
-            JobSubmissionResponseDTO response = new JobSubmissionResponseDTO(jobId, pollingUrl);
-            response.setEstimatedCompletionTime(job.getEstimatedCompletionTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la solicitud: " + e.getMessage(), e);
+        }
+        job.setEstimatedCompletionTime(estimatedCompletion);
+        return job;
+    }
+    
+    /**
+     * Hora estimada de finalización al enviar: espera proyectada en la cola de admisión más la
+     * duración esperada según el modelo de latencia (o la estimación por costo sin muestras)
+     */
+    private LocalDateTime estimateCompletion(String jobId, RouteOptimizationRequest request,
+                                             AdmissionController.AdmissionTicket ticket) {
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        boolean local = ticket != null && ticket.getMode() != AdmissionController.DispatchMode.FULL
+            || localSolver.handles(poiCount);
+        JobLatencyModel.SolverMode mode = local ? JobLatencyModel.SolverMode.LOCAL : JobLatencyModel.SolverMode.REMOTE;
+        long waitMillis = admissionController.isQueued(jobId) 
+            ? admissionController.snapshot().projectedWaitSeconds() * 1000 : 0;
+        long serviceMillis = latencyModel.expectedMillis(mode, poiCount, optimizeFor(request))
+            .orElseGet(() -> admissionController.estimateServiceMillis(poiCount));
+        return LocalDateTime.now().plus(Duration.ofMillis(waitMillis + serviceMillis));
+    }
+    
+    private static String optimizeFor(RouteOptimizationRequest request) {
+        return request.getPreferences() != null ? request.getPreferences().getOptimizeFor() : null;
+    }
+    
+    private JobLatencyModel.SolverMode solverMode(OptimizationJobContext context) {
+        return isLocalSolve(context) ? JobLatencyModel.SolverMode.LOCAL : JobLatencyModel.SolverMode.REMOTE;
+    }
+    
+    /**
+     * true si el trabajo se resuelve con el solver local: degradado por plazo o solicitud pequeña
+     */
+    private boolean isLocalSolve(OptimizationJobContext context) {
+        List<POI> pois = context.getRequest().getPois();
+        return context.isDowngraded() || localSolver.handles(pois != null ? pois.size() : 0);
+    }
+    
+    /**
+     * En modo queue el estado del trabajo lo mantiene el worker; este nodo lo lee de la base de datos
+     */
+    private void registerLocalState(OptimizationJob job) {
+        if (!isQueueMode()) {
+            jobStateStore.register(job);
+        }
+    }
+    
+    private boolean isQueueMode() {
+        return "queue".equalsIgnoreCase(executionMode);
+    }
+    
+    /**
+     * Iniciar un envío ya persistido y construir su respuesta
+     */
+    private JobSubmissionResponseDTO launchSubmission(PendingSubmission submission) {
+        OptimizationJobContext context = submission.context;
+        String jobId = context.getJobId();
+        totalJobsSubmitted.incrementAndGet();
+        
+        // Crear respuesta
+        String pollingUrl = baseUrl + "/api/v1/jobs/" + jobId + "/status";
+        JobSubmissionResponseDTO response = new JobSubmissionResponseDTO(jobId, pollingUrl);
+        response.setEstimatedCompletionTime(submission.job.getEstimatedCompletionTime());
+        
+        if (isQueueMode()) {
+            try {
+                // Espera la confirmación del broker: un rechazo (cola llena) deja el trabajo FAILED
+                eventPublisher.publishOptimizationDispatched(jobId, context.getRequest().getUserId());
+            } catch (RuntimeException e) {
+                String message = "No se pudo encolar el trabajo: " + e.getMessage();
+                totalJobsFailed.incrementAndGet();
+                updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, message);
+                eventPublisher.publishOptimizationFailed(jobId, context.getRequest().getUserId(), message);
+                throw e;
+            }
+        } else if (context.isLeader()) {
+            // Iniciar ahora o cuando el controlador de admisión libere capacidad
+            admissionController.start(submission.ticket, () -> runDispatched(context, submission.ticket.getMode()));
+        } else {
+            startJobProcessing(context);
+        }
+        
+        logger.info("Solicitud de optimización enviada con job ID: {}", jobId);
+        return response;
+    }
+    
+    /**
+     * Liberar la capacidad y la resolución compartida de un envío que no llegó a iniciarse
+     */
+    private void abandonSubmission(PendingSubmission submission, Throwable cause) {
+        if (submission.context.isLeader()) {
+            admissionController.release(submission.context.getJobId(), false);
+            abandonSharedSolve(submission.context.getFingerprint(), submission.sharedSolve, cause);
+        }
+    }
+    
+    private JobSubmissionResponseDTO rejectedSubmission(String status, String message, Integer retryAfterSeconds) {
+        JobSubmissionResponseDTO response = new JobSubmissionResponseDTO();
+        response.setStatus(status);
+        response.setMessage(message);
+        response.setRetryAfterSeconds(retryAfterSeconds);
+        response.setCreatedAt(LocalDateTime.now());
+        return response;
+    }
+    
+    /**
+     * Ejecutar un trabajo despachado según el modo que decidió el control de plazos
+     */
+    private CompletableFuture<Void> runDispatched(OptimizationJobContext context, AdmissionController.DispatchMode mode) {
+        if (mode == AdmissionController.DispatchMode.SHED) {
+            shedJob(context);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (mode == AdmissionController.DispatchMode.DOWNGRADED) {
+            logger.info("Job {}: plazo insuficiente para el servicio de procesamiento, se resuelve localmente", 
+                context.getJobId());
+            context.setDowngraded(true);
+        }
+        return startJobProcessing(context);
+    }
+    
+    /**
+     * Descartar un trabajo que no puede cumplir su plazo sin llegar a procesarlo
+     */
+    private void shedJob(OptimizationJobContext context) {
+        String jobId = context.getJobId();
+        String message = "No es posible completar la optimización dentro del plazo solicitado";
+        logger.warn("Job {} descartado: {}", jobId, message);
+        
+        if (context.isLeader() && !context.getSharedSolve().isDone()) {
+            completeSharedSolve(context, null, new IllegalStateException(message));
+        }
+        if (detachedLeaders.remove(jobId)) {
+            return;
+        }
+        totalJobsFailed.incrementAndGet();
+        updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, message);
+        eventPublisher.publishOptimizationFailed(jobId, context.getRequest().getUserId(), message);
+    }
+    
+    /**
+     * Iniciar procesamiento asíncrono con CompletableFuture de un trabajo ya admitido
+     */
+    private CompletableFuture<Void> startJobProcessing(OptimizationJobContext context) {
+        String jobId = context.getJobId();
+        RouteOptimizationRequest request = context.getRequest();
+        CompletableFuture<Void> jobFuture = processOptimizationAsyncEnhanced(context)
+            .orTimeout((long) jobTimeoutMinutes, java.util.concurrent.TimeUnit.MINUTES);
+        
+        // Registrar trabajo activo antes de encadenar la limpieza para que remove() nunca preceda a put()
+        activeJobs.put(jobId, jobFuture);
+        activeContexts.put(jobId, context);
+        
+        return jobFuture.whenComplete((result, throwable) -> {
+            // Remover de trabajos activos y liberar capacidad al completar
+            activeJobs.remove(jobId, jobFuture);
+            activeContexts.remove(jobId, context);
+            admissionController.release(jobId, throwable == null && !context.isCancelled());
             
-            // Iniciar procesamiento asíncrono con CompletableFuture
-            CompletableFuture<Void> jobFuture = processOptimizationAsyncEnhanced(jobId, request)
-                .orTimeout((long) jobTimeoutMinutes, java.util.concurrent.TimeUnit.MINUTES)
-                .whenComplete((result, throwable) -> {
-                    // Remover de trabajos activos al completar
-                    activeJobs.remove(jobId);
-                    
-                    if (throwable != null) {
-                        logger.error("Error en procesamiento asíncrono para job {}: {}", jobId, throwable.getMessage());
-                        totalJobsFailed.incrementAndGet();
-                        updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, throwable.getMessage());
-                        
-                        // Publicar evento de fallo
-                        eventPublisher.publishOptimizationFailed(jobId, request.getUserId(), throwable.getMessage());
-                    } else {
-                        totalJobsCompleted.incrementAndGet();
-                        logger.info("Trabajo {} completado exitosamente", jobId);
-                        
-                        // Publicar evento de éxito
-                        Optional<OptimizationJob> completedJobOpt = jobRepository.findById(jobId);
-                        completedJobOpt.ifPresent(eventPublisher::publishOptimizationCompleted);
+            // Si el líder terminó sin resolver (fallo previo o cancelación), liberar a los adjuntos
+            if (context.isLeader() && !context.getSharedSolve().isDone()) {
+                completeSharedSolve(context, null, throwable != null ? throwable 
+                    : new IllegalStateException("El trabajo " + jobId + " terminó sin resultado de resolución"));
+            } else if (!context.isLeader()) {
+                // Un adjunto que terminó ya no puede recibir el resultado grande del líder
+                inFlightSolves.computeIfPresent(context.getFingerprint(), (fp, solve) -> {
+                    if (solve.result() == context.getSharedSolve()) {
+                        solve.leave(jobId);
                     }
+                    return solve;
                 });
+            }
             
-            // Registrar trabajo activo
-            activeJobs.put(jobId, jobFuture);
-            
-            logger.info("Solicitud de optimización enviada con job ID: {}", jobId);
-            return response;
-            
+            if (detachedLeaders.remove(jobId)) {
+                // cancelJob ya registró el estado CANCELLED; la resolución siguió solo para los adjuntos
+                logger.info("Resolución compartida del trabajo cancelado {} terminada, capacidad liberada", jobId);
+            } else if (context.isCancelled()) {
+                // cancelJob ya registró el estado CANCELLED y publicó el evento
+                logger.info("Trabajo {} cancelado, capacidad liberada", jobId);
+            } else if (throwable != null) {
+                // Un timeout deja etapas en curso: detenerlas igual que una cancelación
+                stopPipeline(context);
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null 
+                    ? throwable.getCause() : throwable;
+                logger.error("Error en procesamiento asíncrono para job {}: {}", jobId, cause.getMessage());
+                totalJobsFailed.incrementAndGet();
+                updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, cause.getMessage());
+                
+                // Publicar evento de fallo
+                eventPublisher.publishOptimizationFailed(jobId, request.getUserId(), cause.getMessage());
+            } else {
+                totalJobsCompleted.incrementAndGet();
+                logger.info("Trabajo {} completado exitosamente", jobId);
+                recordLatency(context);
+                
+                // Publicar evento de éxito
+                Optional<OptimizationJob> completedJobOpt = jobRepository.findById(jobId);
+                completedJobOpt.ifPresent(eventPublisher::publishOptimizationCompleted);
+            }
+        });
+    }
+    
+    /**
+     * Ejecutar en este nodo (worker) un trabajo encolado por otro nodo. Lee la solicitud de la
+     * base de datos compartida; los trabajos ya terminados o cancelados se ignoran.
+     * 
+     * @return future que se completa cuando el trabajo termina (con éxito o fallo)
+     */
+    public CompletableFuture<Void> executeDispatchedJob(String jobId) {
+        Optional<OptimizationJob> jobOpt = jobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            logger.warn("Trabajo encolado {} no existe, se descarta", jobId);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        OptimizationJob job = jobOpt.get();
+        JobState state = JobState.fromJob(job);
+        if (state.isTerminal()) {
+            logger.info("Trabajo encolado {} ya está en estado {}, se descarta", jobId, job.getStatus());
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        RouteOptimizationRequest request;
+        try {
+            request = objectMapper.readValue(job.getRequestData(), RouteOptimizationRequest.class);
         } catch (Exception e) {
-            logger.error("Error enviando solicitud de optimización", e);
-            throw new RuntimeException("Error enviando solicitud de optimización: " + e.getMessage());
+            logger.error("Solicitud ilegible para trabajo encolado {}: {}", jobId, e.getMessage());
+            updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, "Solicitud ilegible: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        jobStateStore.register(job);
+        totalJobsSubmitted.incrementAndGet();
+        
+        // Caché y single-flight entre los trabajos que ejecuta este worker
+        String fingerprint = fingerprintService.fingerprint(request);
+        long cacheGeneration = resultCache.currentGeneration();
+        Optional<SolvedResult> cachedResult = resultCache.get(fingerprint, request.getUserId());
+        SharedSolve sharedSolve = joinSharedSolve(fingerprint, jobId, cachedResult);
+        boolean leader = jobId.equals(sharedSolve.leaderJobId());
+        if (!leader && cachedResult.isEmpty()) {
+            totalJobsCoalesced.incrementAndGet();
         }
+        
+        // Sin cola de admisión en el worker: el plazo (contado desde el envío) solo se evalúa al empezar
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        AdmissionController.DispatchMode mode = AdmissionController.DispatchMode.FULL;
+        if (leader && job.getCreatedAt() != null) {
+            Instant deadline = admissionController.deadlineFor(request.getUserId(), request.getDeadlineSeconds(),
+                job.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+            mode = admissionController.modeForImmediateStart(poiCount, deadline);
+        }
+        
+        logger.info("Worker ejecutando trabajo encolado {} ({} POIs)", jobId, poiCount);
+        return runDispatched(new OptimizationJobContext(jobId, request, fingerprint, 
+            sharedSolve.result(), leader, cacheGeneration), mode);
     }
     
     /**
-     * Procesamiento asíncrono mejorado con CompletableFuture
+     * Procesamiento asíncrono como pipeline de etapas (validar, preparar, matriz, resolver, guardar).
+     * Las etapas de cómputo corren en optimizationTaskExecutor, las de E/S bloqueante (JPA) en
+     * taskExecutor y la resolución remota no ocupa ningún hilo mientras espera.
      */
-    private CompletableFuture<Void> processOptimizationAsyncEnhanced(String jobId, RouteOptimizationRequest request) {
-        return CompletableFuture
-            .supplyAsync(() -> {
-                logger.info("Iniciando procesamiento asíncrono mejorado para job: {}", jobId);
-                
-                // Publicar evento de inicio
+    private CompletableFuture<Void> processOptimizationAsyncEnhanced(OptimizationJobContext context) {
+        String jobId = context.getJobId();
+        RouteOptimizationRequest request = context.getRequest();
+        
+        CompletableFuture<Void> started = CompletableFuture.runAsync(() -> {
+            context.checkCancelled();
+            logger.info("Iniciando procesamiento asíncrono mejorado para job: {}", jobId);
+            
+            // Publicar evento de inicio
+            if (!isDetached(context)) {
                 Optional<OptimizationJob> jobOpt = jobRepository.findById(jobId);
                 jobOpt.ifPresent(eventPublisher::publishOptimizationStarted);
-                
-                updateJobStatus(jobId, OptimizationJob.JobStatus.PROCESSING, 10);
-                
-                // Simular pasos de procesamiento
-                return simulateProcessingStepsEnhanced(jobId);
+            }
+            
+            context.markProcessingStarted();
+            updateJobStatus(jobId, OptimizationJob.JobStatus.PROCESSING, 0);
+        }, taskExecutor);
+        
+        CompletableFuture<SolvedResult> solved;
+        if (context.isLeader()) {
+            CompletableFuture<Void> validated = runStage(started, context, OptimizationStage.VALIDATE, computeExecutor,
+                () -> validateRequest(context));
+            CompletableFuture<Void> enriched = runStage(validated, context, OptimizationStage.ENRICH, computeExecutor,
+                () -> context.setProcessingRequest(buildProcessingRequestEnhanced(jobId, request)));
+            CompletableFuture<Void> matrixReady = runStage(enriched, context, OptimizationStage.MATRIX, computeExecutor,
+                () -> context.setDistanceMatrix(buildDistanceMatrix(context.getProcessingRequest().getPois())));
+            
+            solved = matrixReady
+                .thenCompose(v -> isLocalSolve(context) 
+                    ? solveLocally(context) : callRouteProcessingServiceEnhanced(context))
+                .whenComplete((result, throwable) -> completeSharedSolve(context, result, throwable));
+        } else {
+            // Trabajo adjunto: esperar la resolución del líder sin repetir etapas ni llamada remota
+            solved = started.thenCompose(v -> {
+                context.setCurrentStage(OptimizationStage.SOLVE);
+                logger.info("Job {}: esperando resolución compartida", jobId);
+                return context.getSharedSolve();
+            });
+        }
+        
+        return solved
+            .thenApplyAsync(result -> {
+                recordStageCompleted(context, OptimizationStage.SOLVE);
+                return result;
             }, taskExecutor)
-            .thenCompose(stepResult -> {
-                // Llamar servicio de procesamiento con reintentos
-                return callRouteProcessingServiceEnhanced(jobId, request);
-            })
-            .thenAccept(result -> {
+            .thenAcceptAsync(result -> {
                 // Actualizar resultado final
-                updateJobStatus(jobId, OptimizationJob.JobStatus.COMPLETED, 100);
-                updateJobResult(jobId, result);
+                context.checkCancelled();
+                context.setCurrentStage(OptimizationStage.PERSIST);
+                // Un líder cancelado solo resolvía para sus adjuntos: su trabajo ya está CANCELLED
+                if (!isDetached(context)) {
+                    updateJobResult(jobId, result);
+                    updateJobStatus(jobId, OptimizationJob.JobStatus.COMPLETED, 
+                        OptimizationStage.PERSIST.getProgressOnCompletion());
+                }
                 logger.info("Procesamiento completado para job: {}", jobId);
-            })
+            }, taskExecutor)
             .exceptionally(throwable -> {
-                logger.error("Error en procesamiento para job {}: {}", jobId, throwable.getMessage());
-                updateJobStatusWithError(jobId, OptimizationJob.JobStatus.FAILED, throwable.getMessage());
-                return null;
+                if (context.isCancelled()) {
+                    logger.info("Job {}: pipeline detenido en etapa {} por cancelación", jobId, context.getCurrentStage());
+                    return null;
+                }
+                // El fallo se propaga: startJobProcessing registra FAILED, métricas y evento
+                logger.error("Error en procesamiento para job {} (etapa {}): {}", 
+                    jobId, context.getCurrentStage(), throwable.getMessage());
+                throw throwable instanceof CompletionException completion ? completion 
+                    : new CompletionException(throwable);
             });
     }
     
     /**
-     * Simular pasos de procesamiento con progreso detallado
+     * Resolución para una solicitud: la del resultado en caché, la que está en curso para la misma
+     * huella (el trabajo se adjunta y suma una referencia) o una nueva de la que el trabajo es líder.
+     * Una resolución ya abortada no admite adjuntos y se reemplaza.
+     */
+    private SharedSolve joinSharedSolve(String fingerprint, String jobId, Optional<SolvedResult> cachedResult) {
+        if (cachedResult.isPresent()) {
+            return new SharedSolve(null, CompletableFuture.completedFuture(cachedResult.get()));
+        }
+        return inFlightSolves.compute(fingerprint, (fp, existing) -> existing != null && existing.attach(jobId)
+            ? existing : new SharedSolve(jobId, new CompletableFuture<>()));
+    }
+    
+    /**
+     * Publicar el resultado de la resolución del líder a los trabajos adjuntos y retirar la
+     * huella de las resoluciones en curso
      */
-    private String simulateProcessingStepsEnhanced(String jobId) {
-        String[] steps = {
-            "Validando datos de entrada",
-            "Preparando datos sintéticos",
-            "Calculando matrices de distancia",
-            "Optimizando secuencia de POIs"
-        };
+    private void completeSharedSolve(OptimizationJobContext context, SolvedResult result, Throwable throwable) {
+        inFlightSolves.computeIfPresent(context.getFingerprint(),
+            (fp, solve) -> solve.result() == context.getSharedSolve() ? null : solve);
+        if (throwable != null) {
+            context.getSharedSolve().completeExceptionally(throwable);
+        } else {
+            if (!context.isFallbackResult()) {
+                resultCache.put(context.getFingerprint(), result, context.getRequest(), context.getCacheGeneration());
+            }
+            context.getSharedSolve().complete(result);
+        }
+    }
+    
+    /**
+     * Descartar una resolución compartida cuyo líder no llegó a ejecutarse
+     */
+    private void abandonSharedSolve(String fingerprint, SharedSolve sharedSolve, Throwable cause) {
+        inFlightSolves.remove(fingerprint, sharedSolve);
+        sharedSolve.result().completeExceptionally(cause);
+    }
+    
+    /**
+     * Encadenar una etapa síncrona en el executor indicado y registrar su progreso al terminar
+     */
+    private CompletableFuture<Void> runStage(CompletableFuture<Void> previous, OptimizationJobContext context,
+                                             OptimizationStage stage, Executor executor, Runnable work) {
+        return previous
+            .thenRunAsync(() -> {
+                context.enterStage();
+                try {
+                    context.setCurrentStage(stage);
+                    logger.info("Job {}: {}", context.getJobId(), stage.getDescription());
+                    work.run();
+                } finally {
+                    context.exitStage();
+                }
+            }, executor)
+            .thenRunAsync(() -> recordStageCompleted(context, stage), taskExecutor);
+    }
+    
+    /**
+     * Registrar la finalización de una etapa: persistir progreso y publicar evento
+     */
+    private void recordStageCompleted(OptimizationJobContext context, OptimizationStage stage) {
+        if (isDetached(context)) {
+            return;
+        }
+        int progress = stage.getProgressOnCompletion();
+        refreshEstimate(context);
+        updateJobStatus(context.getJobId(), OptimizationJob.JobStatus.PROCESSING, progress);
+        eventPublisher.publishOptimizationProgress(context.getJobId(), context.getRequest().getUserId(), 
+            progress, stage.getDescription() + " completado");
+    }
+    
+    /**
+     * Reestimar la hora de finalización con el tiempo restante esperado dado lo ya transcurrido;
+     * sin muestras suficientes se conserva la estimación anterior
+     */
+    private void refreshEstimate(OptimizationJobContext context) {
+        if (!context.isProcessingStarted()) {
+            return;
+        }
+        RouteOptimizationRequest request = context.getRequest();
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        latencyModel.remainingMillis(solverMode(context), poiCount, optimizeFor(request), 
+                context.getProcessingElapsedMillis())
+            .ifPresent(remaining -> jobStateStore.updateEstimate(context.getJobId(), 
+                LocalDateTime.now().plus(Duration.ofMillis(remaining))));
+    }
+    
+    /**
+     * Registrar en el modelo de latencia la duración de una resolución completada por este trabajo.
+     * Los adjuntos no resolvieron nada y los resultados de respaldo tras un fallo remoto no
+     * representan la duración del solver.
+     */
+    private void recordLatency(OptimizationJobContext context) {
+        if (!context.isLeader() || !context.isProcessingStarted()
+                || context.isFallbackResult() && !context.isDowngraded()) {
+            return;
+        }
+        RouteOptimizationRequest request = context.getRequest();
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        latencyModel.record(solverMode(context), poiCount, optimizeFor(request), context.getProcessingElapsedMillis());
+    }
+    
+    /**
+     * Etapa de validación: el request debe tener POIs con coordenadas dentro de rango
+     */
+    private void validateRequest(OptimizationJobContext context) {
+        List<POI> pois = context.getRequest().getPois();
+        if (pois == null || pois.isEmpty()) {
+            throw new IllegalArgumentException("La solicitud no contiene POIs para optimizar");
+        }
         
-        try {
-            for (int i = 0; i < steps.length; i++) {
-                logger.info("Job {}: {}", jobId, steps[i]);
-                updateJobStatus(jobId, OptimizationJob.JobStatus.PROCESSING, 20 + (i * 15));
-                Thread.sleep(1000 + (long)(Math.random() * 2000)); // Simular tiempo variable
+        for (POI poi : pois) {
+            if (poi.getLatitude() != null && Math.abs(poi.getLatitude()) > 90.0 
+                    || poi.getLongitude() != null && Math.abs(poi.getLongitude()) > 180.0) {
+                throw new IllegalArgumentException("Coordenadas fuera de rango para POI " + poi.getId());
+            }
+            if (poi.getLatitude() == null || poi.getLongitude() == null) {
+                logger.warn("Job {}: POI {} sin coordenadas, se usarán valores por defecto", 
+                    context.getJobId(), poi.getId());
             }
-            
-            return "preprocessing_completed";
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Procesamiento interrumpido", e);
         }
     }
     
     /**
-     * Llamar servicio de procesamiento con reintentos y circuit breaker
+     * Etapa de matriz: distancias haversine (km) entre todos los pares de POIs
      */
-    private CompletableFuture<String> callRouteProcessingServiceEnhanced(String jobId, RouteOptimizationRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Llamando servicio de procesamiento para job: {}", jobId);
-                updateJobStatus(jobId, OptimizationJob.JobStatus.PROCESSING, 60);
-                
-                // Construir solicitud
-                RouteProcessingRequestDTO processingRequest = buildProcessingRequestEnhanced(jobId, request);
-                
-                // Llamar servicio con reintentos usando WebClient reactivo
-                String processingUrl = routeProcessingServiceUrl + "/api/v1/process-route";
-                
-                Mono<String> resultMono = webClient.post()
-                    .uri(processingUrl)
-                    .bodyValue(processingRequest)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(2))
-                        .maxBackoff(Duration.ofSeconds(10))
-                        .doBeforeRetry(retrySignal -> {
-                            logger.warn("Reintentando llamada para job {} (intento {})", 
-                                jobId, retrySignal.totalRetries() + 1);
-                        }))
-                    .timeout(Duration.ofMinutes(jobTimeoutMinutes - 2)); // Dejar margen para timeout
-                
-                String result = resultMono.block(); // Convertir a síncrono para CompletableFuture
-                
-                logger.info("Respuesta recibida del servicio de procesamiento para job: {}", jobId);
-                updateJobStatus(jobId, OptimizationJob.JobStatus.PROCESSING, 90);
-                
-                return result != null ? result : generateFallbackResult(request, jobId);
-                
-            } catch (Exception e) {
-                logger.error("Error llamando servicio de procesamiento para job {}: {}", jobId, e.getMessage());
+    private double[][] buildDistanceMatrix(List<RouteProcessingRequestDTO.ProcessingPOIDTO> pois) {
+        int n = pois.size();
+        double[][] matrix = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            throwIfInterrupted();
+            for (int j = i + 1; j < n; j++) {
+                double distance = haversineKm(
+                    pois.get(i).getLatitude(), pois.get(i).getLongitude(),
+                    pois.get(j).getLatitude(), pois.get(j).getLongitude());
+                matrix[i][j] = distance;
+                matrix[j][i] = distance;
+            }
+        }
+        return matrix;
+    }
+    
+    /**
+     * Punto de cancelación de las etapas de cómputo: la cancelación interrumpe el hilo de la etapa
+     */
+    private static void throwIfInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Etapa interrumpida por cancelación del trabajo");
+        }
+    }
+    
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+    
+    /**
+     * Etapa de resolución: llamar servicio de procesamiento con reintentos.
+     * La respuesta de WebClient se recibe por suscripción en lugar de block(), de modo que
+     * ningún hilo del pool queda retenido durante la resolución remota; la suscripción queda
+     * en el contexto para que una cancelación cierre la petición HTTP en curso. La instancia
+     * y el hedging los decide {@link RouteProcessingClient}. La respuesta llega como archivo
+     * temporal y se procesa en streaming en taskExecutor (ver {@link SolverResultIngestor}).
+     * Si el solver responde en streaming, su progreso y la mejor ruta parcial se reflejan en el
+     * estado del trabajo mientras resuelve (ver {@link SolveProgressListener}).
+     */
+    private CompletableFuture<SolvedResult> callRouteProcessingServiceEnhanced(OptimizationJobContext context) {
+        String jobId = context.getJobId();
+        context.setCurrentStage(OptimizationStage.SOLVE);
+        logger.info("Job {}: {}", jobId, OptimizationStage.SOLVE.getDescription());
+        
+        // Llamar servicio con reintentos usando WebClient reactivo. Con el circuit breaker abierto
+        // o ante un error de la solicitud (4xx) no se reintenta: se pasa directo al respaldo
+        CompletableFuture<RouteProcessingClient.SolverResponse> response = new CompletableFuture<>();
+        RouteOptimizationRequest request = context.getRequest();
+        int poiCount = request.getPois() != null ? request.getPois().size() : 0;
+        Disposable subscription = routeProcessingClient.solve(jobId, context.getProcessingRequest(), poiCount,
+                new SolveProgressListener(context))
+            .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(2))
+                .maxBackoff(Duration.ofSeconds(10))
+                .filter(this::isRetryableSolveError)
+                .doBeforeRetry(retrySignal -> {
+                    logger.warn("Reintentando llamada para job {} (intento {})", 
+                        jobId, retrySignal.totalRetries() + 1);
+                }))
+            .timeout(Duration.ofMinutes(jobTimeoutMinutes - 2)) // Dejar margen para timeout
+            .subscribe(response::complete, response::completeExceptionally, () -> response.complete(null));
+        context.setSolveSubscription(subscription);
+        
+        return response
+            .handleAsync((result, throwable) -> {
+                // Un trabajo cancelado no genera resultado de respaldo
+                if (context.isCancelled() && result != null) {
+                    resultIngestor.discard(result);
+                }
+                context.checkCancelled();
+                if (throwable != null) {
+                    logger.error("Error llamando servicio de procesamiento para job {}: {}", jobId, throwable.getMessage());
+                } else if (result != null) {
+                    logger.info("Respuesta recibida del servicio de procesamiento para job {} ({} bytes)", 
+                        jobId, result.sizeBytes());
+                    try {
+                        return resultIngestor.ingest(resultOwner(context), result);
+                    } catch (UncheckedIOException e) {
+                        logger.error("Respuesta ilegible del servicio de procesamiento para job {}: {}", 
+                            jobId, e.getMessage());
+                    }
+                }
                 
                 // Generar resultado de respaldo
                 logger.info("Generando resultado de respaldo para job: {}", jobId);
-                return generateFallbackResult(request, jobId);
+                context.setFallbackResult(true);
+                return resultIngestor.fromJson(generateLocalResult(context, true));
+            }, taskExecutor);
+    }
+    
+    /**
+     * Etapa de resolución local en optimizationTaskExecutor, sin llamada remota: trabajos degradados
+     * por plazo y solicitudes pequeñas. Los resultados degradados no se guardan en caché, para no
+     * servirlos a solicitudes posteriores que sí pueden esperar al servicio de procesamiento.
+     */
+    private CompletableFuture<SolvedResult> solveLocally(OptimizationJobContext context) {
+        return CompletableFuture.supplyAsync(() -> {
+            context.enterStage();
+            try {
+                context.setCurrentStage(OptimizationStage.SOLVE);
+                logger.info("Job {}: {} (solver local{})", context.getJobId(), OptimizationStage.SOLVE.getDescription(),
+                    context.isDowngraded() ? " por plazo" : "");
+                context.setFallbackResult(context.isDowngraded());
+                return resultIngestor.fromJson(generateLocalResult(context, false));
+            } finally {
+                context.exitStage();
             }
-        }, taskExecutor);
+        }, computeExecutor);
+    }
+    
+    /**
+     * Trabajo en cuya fila se guarda un resultado grande: el líder o, si se canceló con otros
+     * trabajos adjuntos, uno de ellos (la fila de un trabajo cancelado ya no se modifica)
+     */
+    private String resultOwner(OptimizationJobContext context) {
+        SharedSolve solve = inFlightSolves.get(context.getFingerprint());
+        return solve != null && solve.result() == context.getSharedSolve() 
+            ? solve.ownerJobId() : context.getJobId();
+    }
+    
+    private boolean isRetryableSolveError(Throwable error) {
+        if (error instanceof SolverUnavailableException unavailable) {
+            return unavailable.isRetryable();
+        }
+        return !(error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError());
     }
     
     /**
@@ -283,6 +934,7 @@ public class EnhancedRouteOptimizationService {
         List<RouteProcessingRequestDTO.ProcessingPOIDTO> processingPOIs = 
             request.getPois().stream()
                 .map(poi -> {
+                    throwIfInterrupted();
                     RouteProcessingRequestDTO.ProcessingPOIDTO dto = new RouteProcessingRequestDTO.ProcessingPOIDTO();
                     
                     // Basic identification and location
@@ -351,77 +1003,154 @@ public class EnhancedRouteOptimizationService {
     }
     
     /**
-     * Generar resultado de respaldo mejorado
+     * Resultado del solver local ({@link LocalRouteSolver}) sobre la matriz de distancias del trabajo:
+     * orden de visita, distancia y duración (traslados a velocidad media más tiempo de visita).
+     * El puntaje es el ahorro de distancia respecto del orden de entrada.
      */
-    private String generateFallbackResult(RouteOptimizationRequest request, String jobId) {
+    private String generateLocalResult(OptimizationJobContext context, boolean fallback) {
+        String jobId = context.getJobId();
+        List<RouteProcessingRequestDTO.ProcessingPOIDTO> pois = context.getProcessingRequest().getPois();
+        double[][] matrix = context.getDistanceMatrix() != null 
+            ? context.getDistanceMatrix() : buildDistanceMatrix(pois);
         try {
+            double inputOrderDistanceKm = 0.0;
+            for (int i = 1; i < matrix.length; i++) {
+                inputOrderDistanceKm += matrix[i - 1][i];
+            }
+            LocalRouteSolver.Route route = localSolver.solve(matrix);
+            int[] order = route.order();
+            int visitMinutes = 0;
+            for (RouteProcessingRequestDTO.ProcessingPOIDTO poi : pois) {
+                visitMinutes += poi.getVisitDuration() != null ? poi.getVisitDuration() : 0;
+            }
+            final int totalMinutes = localSolver.travelMinutes(route.distanceKm()) + visitMinutes;
+            final double score = inputOrderDistanceKm > 0 ? 1.0 - route.distanceKm() / inputOrderDistanceKm : 1.0;
+            
             var result = new Object() {
-                public final String optimized_route_id = "fallback_" + jobId.substring(0, 8);
-                public final Object[] optimized_sequence = request.getPois().stream()
-                    .map(poi -> new Object() {
-                        public final Long poi_id = poi.getId();
-                        public final String name = poi.getName();
-                        public final Double latitude = poi.getLatitude();
-                        public final Double longitude = poi.getLongitude();
-                        public final Integer visit_order = request.getPois().indexOf(poi) + 1;
-                        public final Integer estimated_visit_time = poi.getVisitDuration();
+                public final String optimized_route_id = (fallback ? "fallback_" : "local_") + jobId.substring(0, 8);
+                public final Object[] optimized_sequence = IntStream.range(0, order.length)
+                    .mapToObj(position -> {
+                        RouteProcessingRequestDTO.ProcessingPOIDTO poi = pois.get(order[position]);
+                        return new Object() {
+                            public final Long poi_id = poi.getId();
+                            public final String name = poi.getName();
+                            public final Double latitude = poi.getLatitude();
+                            public final Double longitude = poi.getLongitude();
+                            public final Integer visit_order = position + 1;
+                            public final Integer estimated_visit_time = poi.getVisitDuration();
+                        };
                     }).toArray();
-                public final Double total_distance_km = 45.7 + (Math.random() * 50);
-                public final Integer total_time_minutes = 280 + (int)(Math.random() * 120);
-                public final String optimization_algorithm = "Fallback-Algorithm";
-                public final Double optimization_score = 0.75 + (Math.random() * 0.2);
+                public final Double total_distance_km = route.distanceKm();
+                public final Integer total_time_minutes = totalMinutes;
+                public final String optimization_algorithm = LocalRouteSolver.ALGORITHM;
+                public final Double optimization_score = score;
                 public final String generated_at = LocalDateTime.now().toString();
-                public final String note = "Resultado generado por algoritmo de respaldo";
+                public final String note = fallback 
+                    ? "Resultado generado por algoritmo de respaldo" : "Resultado generado por el solver local";
             };
             
             return objectMapper.writeValueAsString(result);
             
-        } catch (Exception e) {
-            logger.error("Error generando resultado de respaldo para job {}: {}", jobId, e.getMessage());
+        } catch (JsonProcessingException e) {
+            logger.error("Error generando resultado local para job {}: {}", jobId, e.getMessage());
             return "{\"error\":\"No se pudo generar resultado de respaldo\"}";
         }
     }
     
+    /**
+     * Estado en memoria del trabajo, sin construir la respuesta (p. ej. para comparar su versión)
+     */
+    public Optional<JobState> getJobState(String jobId) {
+        // Leer primero del almacén en memoria; la base de datos solo se usa en un fallo
+        Optional<JobState> stateOpt = jobStateStore.get(jobId);
+        if (stateOpt.isPresent()) {
+            return stateOpt;
+        }
+        return jobRepository.findById(jobId).map(jobStateStore::cacheLoaded);
+    }
+    
     /**
      * Obtener estado del trabajo
      */
     public Optional<JobStatusResponseDTO> getJobStatus(String jobId) {
-        Optional<OptimizationJob> jobOpt = jobRepository.findById(jobId);
-        
-        if (jobOpt.isEmpty()) {
-            return Optional.empty();
+        return getJobState(jobId).map(job -> toStatusResponse(job, true));
+    }
+    
+    /**
+     * Estado de varios trabajos: primero del almacén en memoria y los faltantes en una sola consulta
+     * sin columnas LOB. Con since solo se devuelven los trabajos cuya versión es posterior.
+     * Las respuestas no incluyen el resultado completo, solo su resumen.
+     */
+    public BatchJobStatusResponseDTO getJobStatuses(List<String> jobIds, Long since) {
+        Map<String, JobState> states = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String jobId : jobIds) {
+            Optional<JobState> state = jobStateStore.get(jobId);
+            if (state.isPresent()) {
+                states.put(jobId, state.get());
+            } else {
+                misses.add(jobId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            jobRepository.findStatusViewsByJobIdIn(misses)
+                .forEach(view -> states.put(view.getJobId(), JobState.fromStatusView(view)));
         }
         
-        OptimizationJob job = jobOpt.get();
+        long watermark = since != null ? since : 0L;
+        List<JobStatusResponseDTO> jobs = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        for (String jobId : jobIds) {
+            JobState state = states.get(jobId);
+            if (state == null) {
+                notFound.add(jobId);
+                continue;
+            }
+            long version = state.getVersion();
+            watermark = Math.max(watermark, version);
+            if (since == null || version > since) {
+                jobs.add(toStatusResponse(state, false));
+            }
+        }
+        return new BatchJobStatusResponseDTO(watermark, jobs, notFound);
+    }
+    
+    private JobStatusResponseDTO toStatusResponse(JobState job, boolean includeResult) {
+        String jobId = job.getJobId();
         JobStatusResponseDTO response = new JobStatusResponseDTO(jobId, job.getStatus().name());
         
+        response.setVersion(job.getVersion());
         response.setProgressPercentage(job.getProgressPercentage());
         response.setCreatedAt(job.getCreatedAt());
         response.setUpdatedAt(job.getUpdatedAt());
         response.setCompletedAt(job.getCompletedAt());
         response.setEstimatedCompletionTime(job.getEstimatedCompletionTime());
         
-        // Información adicional sobre concurrencia
-        boolean isActive = activeJobs.containsKey(jobId);
-        
         switch (job.getStatus()) {
             case PENDING:
-                response.setMessage("Solicitud en cola para procesamiento");
-                response.setRetryAfterSeconds(isActive ? 20 : 30);
+                if (admissionController.isQueued(jobId)) {
+                    response.setMessage("Solicitud en cola de admisión, esperando capacidad");
+                    response.setRetryAfterSeconds(Math.max(retryAfterSeconds(job), 
+                        clampRetryAfter(admissionController.snapshot().projectedWaitSeconds())));
+                } else {
+                    response.setMessage("Solicitud en cola para procesamiento");
+                    response.setRetryAfterSeconds(retryAfterSeconds(job));
+                }
                 break;
             case PROCESSING:
                 response.setMessage(String.format("Optimización en progreso (%d%% completado)", 
                     job.getProgressPercentage()));
-                response.setRetryAfterSeconds(15);
+                if (includeResult) {
+                    response.setPartialResult(job.getPartialResult());
+                }
+                response.setRetryAfterSeconds(retryAfterSeconds(job));
                 break;
             case COMPLETED:
                 response.setMessage("Optimización completada exitosamente");
-                try {
-                    if (job.getResultData() != null) {
-                        response.setResult(objectMapper.readValue(job.getResultData(), Object.class));
-                    }
-                } catch (Exception e) {
-                    logger.error("Error analizando datos de resultado para job {}", jobId, e);
+                // El resultado se incrusta tal cual en la respuesta, sin analizarlo ni volver a serializarlo
+                response.setResultSummary(job.getResultSummary());
+                if (includeResult) {
+                    response.setResult(resolveResultJson(job));
                 }
                 break;
             case FAILED:
@@ -437,48 +1166,161 @@ public class EnhancedRouteOptimizationService {
                 break;
         }
         
-        return Optional.of(response);
+        return response;
     }
     
     /**
-     * Cancelar trabajo con manejo mejorado
+     * Retry-After según la hora estimada de finalización: el tiempo que falta hasta ella o, si ya
+     * pasó, una espera proporcional al retraso (el trabajo resultó más lento de lo previsto)
+     */
+    private int retryAfterSeconds(JobState job) {
+        LocalDateTime estimate = job.getEstimatedCompletionTime();
+        if (estimate == null) {
+            return clampRetryAfter(maxRetryAfterSeconds / 4);
+        }
+        long untilEstimate = Duration.between(LocalDateTime.now(), estimate).getSeconds();
+        return clampRetryAfter(untilEstimate >= 0 ? untilEstimate : -untilEstimate / 4);
+    }
+    
+    private int clampRetryAfter(long seconds) {
+        return (int) Math.max(minRetryAfterSeconds, Math.min(maxRetryAfterSeconds, seconds));
+    }
+    
+    /**
+     * Resultado del trabajo; si es demasiado grande para conservarse en memoria se lee de la base de datos
+     */
+    private RawJson resolveResultJson(JobState job) {
+        if (job.getResultJson() != null || !job.isResultStored()) {
+            return RawJson.of(job.getResultJson());
+        }
+        return jobRepository.findById(job.getJobId())
+            .map(OptimizationJob::getResultData)
+            .map(RawJson::of)
+            .orElse(null);
+    }
+    
+    /**
+     * Cancelar trabajo de punta a punta: se detiene el pipeline (etapa en curso interrumpida,
+     * petición remota cerrada y servicio de procesamiento notificado) y se libera su capacidad
      */
     public boolean cancelJob(String jobId) {
-        // Intentar cancelar trabajo activo
-        CompletableFuture<Void> activeFuture = activeJobs.get(jobId);
-        if (activeFuture != null) {
-            boolean cancelled = activeFuture.cancel(true);
-            if (cancelled) {
-                activeJobs.remove(jobId);
-                logger.info("Trabajo activo {} cancelado", jobId);
+        // La resolución compartida solo se detiene cuando se cancela el último trabajo adjunto a ella
+        SharedSolve solve = inFlightSolves.values().stream()
+            .filter(candidate -> candidate.isAttached(jobId))
+            .findFirst().orElse(null);
+        boolean lastAttached = solve == null || solve.detach(jobId);
+        boolean leader = solve != null && jobId.equals(solve.leaderJobId());
+        
+        if (leader && !lastAttached) {
+            // El trabajo queda cancelado pero su resolución (en cola o en curso) sigue para los adjuntos
+            detachedLeaders.add(jobId);
+            logger.info("Trabajo líder {} cancelado, su resolución continúa para los trabajos adjuntos", jobId);
+        } else {
+            stopJob(jobId);
+            if (solve != null && !leader && lastAttached) {
+                // Último adjunto de un líder ya cancelado: ahora sí se aborta la resolución
+                logger.info("Último trabajo adjunto {} cancelado, se aborta la resolución del líder {}", 
+                    jobId, solve.leaderJobId());
+                stopJob(solve.leaderJobId());
             }
         }
         
-        // Actualizar estado en base de datos
-        Optional<OptimizationJob> jobOpt = jobRepository.findById(jobId);
+        // Actualizar estado (memoria y base de datos)
+        boolean cancelled = false;
+        Optional<JobState> jobOpt = jobStateStore.get(jobId)
+            .or(() -> jobRepository.findById(jobId).map(JobState::fromJob));
         if (jobOpt.isPresent()) {
-            OptimizationJob job = jobOpt.get();
+            JobState job = jobOpt.get();
             if (job.getStatus() == OptimizationJob.JobStatus.PENDING || 
                 job.getStatus() == OptimizationJob.JobStatus.PROCESSING) {
-                job.setStatus(OptimizationJob.JobStatus.CANCELLED);
-                jobRepository.save(job);
-                return true;
+                updateJobStatus(jobId, OptimizationJob.JobStatus.CANCELLED, job.getProgressPercentage());
+                eventPublisher.publishOptimizationCancelled(jobId, job.getUserId());
+                cancelled = true;
             }
         }
         
-        return false;
+        return cancelled;
+    }
+    
+    /**
+     * Detener un trabajo: se retira de la cola de admisión (abandonando la resolución que lidera)
+     * o se detiene su pipeline; completar su future libera de inmediato su capacidad de admisión
+     */
+    private void stopJob(String jobId) {
+        if (admissionController.cancelQueued(jobId)) {
+            logger.info("Trabajo {} retirado de la cola de admisión", jobId);
+            detachedLeaders.remove(jobId);
+            inFlightSolves.forEach((fingerprint, solve) -> {
+                if (jobId.equals(solve.leaderJobId())) {
+                    abandonSharedSolve(fingerprint, solve, 
+                        new CancellationException("Trabajo líder " + jobId + " cancelado"));
+                }
+            });
+        }
+        
+        // Detener las etapas antes de registrar el estado para que ninguna lo sobrescriba
+        OptimizationJobContext context = activeContexts.get(jobId);
+        if (context != null) {
+            stopPipeline(context);
+        }
+        
+        CompletableFuture<Void> activeFuture = activeJobs.get(jobId);
+        if (activeFuture != null && activeFuture.cancel(true)) {
+            logger.info("Trabajo activo {} cancelado", jobId);
+        }
+    }
+    
+    private boolean isDetached(OptimizationJobContext context) {
+        return context.isLeader() && detachedLeaders.contains(context.getJobId());
+    }
+    
+    /**
+     * Cancelar las etapas en curso de un trabajo; descartar la suscripción remota hace que
+     * {@link RouteProcessingClient} pida a cada instancia involucrada que aborte la resolución
+     */
+    private void stopPipeline(OptimizationJobContext context) {
+        context.cancel();
     }
     
     /**
      * Obtener estadísticas del sistema
      */
     public SystemStatsDTO getSystemStats() {
+        AdmissionController.AdmissionSnapshot admission = admissionController.snapshot();
+        
         SystemStatsDTO stats = new SystemStatsDTO();
         stats.setActiveJobs(activeJobs.size());
         stats.setMaxConcurrentJobs(maxConcurrentJobs);
+        stats.setQueuedJobs(admission.queuedJobs());
+        stats.setQueuedUsers(admission.queuedUsers());
+        stats.setMaxQueueSize(admission.maxQueueSize());
+        stats.setCapacityUnits(admission.capacityUnits());
+        stats.setUsedCapacityUnits(admission.inFlightCost());
+        stats.setProjectedWaitSeconds(admission.projectedWaitSeconds());
+        stats.setDowngradedJobs(admission.downgradedJobs());
+        stats.setShedJobs(admission.shedJobs());
         stats.setTotalJobsSubmitted(totalJobsSubmitted.get());
         stats.setTotalJobsCompleted(totalJobsCompleted.get());
         stats.setTotalJobsFailed(totalJobsFailed.get());
+        stats.setTotalJobsCoalesced(totalJobsCoalesced.get());
+        
+        OptimizationResultCache.CacheStats cacheStats = resultCache.stats();
+        stats.setCacheEntries(cacheStats.entries());
+        stats.setCacheHits(cacheStats.hits());
+        stats.setCacheMisses(cacheStats.misses());
+        stats.setCacheEvictions(cacheStats.evictions());
+        stats.setCacheInvalidations(cacheStats.invalidations());
+        
+        RouteProcessingClient.HedgingStats hedgingStats = routeProcessingClient.stats();
+        stats.setSolverRequests(hedgingStats.requests());
+        stats.setHedgedRequests(hedgingStats.hedgedRequests());
+        stats.setHedgeWins(hedgingStats.hedgeWins());
+        stats.setHedgeDelayMs(hedgingStats.hedgeDelayMs());
+        stats.setSolverRequestBytes(hedgingStats.requestBytes());
+        stats.setSolverRequestRawBytes(hedgingStats.requestRawBytes());
+        stats.setSolverResponseBytes(hedgingStats.responseBytes());
+        stats.setSolverEndpoints(hedgingStats.endpoints());
+        stats.setHttpPools(connectionPoolMetrics.snapshot());
         stats.setSuccessRate(totalJobsSubmitted.get() > 0 ? 
             (double) totalJobsCompleted.get() / totalJobsSubmitted.get() * 100 : 0.0);
         
@@ -488,26 +1330,192 @@ public class EnhancedRouteOptimizationService {
     // Métodos auxiliares
     
     private void updateJobStatus(String jobId, OptimizationJob.JobStatus status, Integer progress) {
-        jobRepository.findById(jobId).ifPresent(job -> {
-            job.setStatus(status);
-            job.setProgressPercentage(progress);
-            jobRepository.save(job);
-        });
+        jobStateStore.updateStatus(jobId, status, progress);
+        progressBuffer.recordStatus(jobId, status, progress);
     }
     
     private void updateJobStatusWithError(String jobId, OptimizationJob.JobStatus status, String errorMessage) {
-        jobRepository.findById(jobId).ifPresent(job -> {
-            job.setStatus(status);
-            job.setErrorMessage(errorMessage);
-            jobRepository.save(job);
-        });
+        jobStateStore.updateError(jobId, status, errorMessage);
+        progressBuffer.recordError(jobId, status, errorMessage);
     }
     
-    private void updateJobResult(String jobId, String resultData) {
-        jobRepository.findById(jobId).ifPresent(job -> {
-            job.setResultData(resultData);
-            jobRepository.save(job);
-        });
+    /**
+     * Guardar el resultado de un trabajo. Un resultado grande ya está en la fila de su trabajo de
+     * origen: si es otro trabajo (adjunto o acierto de caché) se copia dentro de la base de datos.
+     * Si la fila de origen ya no tiene el resultado (limpieza) se retira de la caché y el trabajo falla.
+     */
+    private void updateJobResult(String jobId, SolvedResult result) {
+        if (!result.isInline() && !jobId.equals(result.getSourceJobId())
+                && !jobRepository.copyResult(jobId, result.getSourceJobId(), result.getSummary())) {
+            if (jobStateStore.get(jobId).map(JobState::isTerminal).orElse(false)) {
+                logger.info("Job {} ya terminó, no se copia el resultado del job {}", jobId, result.getSourceJobId());
+                return;
+            }
+            resultCache.evictSource(result.getSourceJobId());
+            throw new IllegalStateException("El resultado del job " + result.getSourceJobId() 
+                + " ya no está disponible para el job " + jobId);
+        }
+        jobStateStore.updateResult(jobId, result.getJson(), result.getSummary());
+        progressBuffer.recordResult(jobId, result.getJson(), result.getSummary());
+    }
+    
+    /**
+     * Progreso reportado por el solver durante una resolución en streaming. El avance del solver
+     * (0-100) se proyecta en el tramo de la etapa SOLVE sin alcanzar su fin, solo hacia adelante;
+     * el estado en memoria se actualiza siempre y los eventos se publican con un intervalo mínimo.
+     */
+    private final class SolveProgressListener implements RouteProcessingClient.SolveListener {
+        private final OptimizationJobContext context;
+        private int progress = OptimizationStage.MATRIX.getProgressOnCompletion();
+        private long lastPublishedAt;
+        
+        private SolveProgressListener(OptimizationJobContext context) {
+            this.context = context;
+        }
+        
+        @Override
+        public synchronized void onProgress(int solverProgress, String message) {
+            int start = OptimizationStage.MATRIX.getProgressOnCompletion();
+            int end = OptimizationStage.SOLVE.getProgressOnCompletion();
+            int mapped = Math.min(end - 1, start + Math.max(0, Math.min(100, solverProgress)) * (end - start) / 100);
+            if (context.isCancelled() || isDetached(context) || mapped <= progress) {
+                return;
+            }
+            progress = mapped;
+            updateJobStatus(context.getJobId(), OptimizationJob.JobStatus.PROCESSING, progress);
+            if (shouldPublish()) {
+                eventPublisher.publishOptimizationProgress(context.getJobId(), context.getRequest().getUserId(), 
+                    progress, message != null ? message : OptimizationStage.SOLVE.getDescription());
+            }
+        }
+        
+        @Override
+        public synchronized void onBestSoFar(JsonNode route) {
+            if (context.isCancelled() || isDetached(context)) {
+                return;
+            }
+            jobStateStore.updatePartialResult(context.getJobId(), route);
+            if (shouldPublish()) {
+                eventPublisher.publishOptimizationProgress(context.getJobId(), context.getRequest().getUserId(), 
+                    progress, "Mejor ruta encontrada hasta el momento", toPartialResultData(route));
+            }
+        }
+        
+        private boolean shouldPublish() {
+            long now = System.currentTimeMillis();
+            if (now - lastPublishedAt < streamingProgressMinIntervalMs) {
+                return false;
+            }
+            lastPublishedAt = now;
+            return true;
+        }
+    }
+    
+    /**
+     * Datos de una ruta parcial para el evento de progreso (acepta nombres camelCase o snake_case)
+     */
+    private static RouteOptimizationEvent.OptimizationResultData toPartialResultData(JsonNode route) {
+        RouteOptimizationEvent.OptimizationResultData data = new RouteOptimizationEvent.OptimizationResultData();
+        JsonNode distance = field(route, "totalDistanceKm", "total_distance_km");
+        JsonNode time = field(route, "totalTimeMinutes", "total_time_minutes");
+        JsonNode score = field(route, "optimizationScore", "optimization_score");
+        data.setTotalDistanceKm(distance.isNumber() ? distance.asDouble() : null);
+        data.setTotalTimeMinutes(time.isNumber() ? time.asInt() : null);
+        data.setOptimizationScore(score.isNumber() ? score.asDouble() : null);
+        JsonNode sequence = field(route, "optimizedSequence", "optimized_sequence");
+        if (sequence.isArray()) {
+            List<String> stops = new ArrayList<>(sequence.size());
+            for (JsonNode stop : sequence) {
+                stops.add(stop.isValueNode() ? stop.asText() : field(stop, "name", "poi_id").asText(null));
+            }
+            data.setOptimizedSequence(stops);
+        }
+        data.setRouteDescription("Ruta parcial en optimización");
+        return data;
+    }
+    
+    private static JsonNode field(JsonNode node, String name, String alternativeName) {
+        return node.has(name) ? node.path(name) : node.path(alternativeName);
+    }
+    
+    /**
+     * Resolución en curso compartida por solicitudes con la misma huella. Lleva la cuenta de los
+     * trabajos adjuntos (el líder incluido): cancelar uno solo lo desvincula, y la resolución se
+     * aborta únicamente al cancelar el último.
+     */
+    private static final class SharedSolve {
+        private final String leaderJobId;
+        private final CompletableFuture<SolvedResult> result;
+        private final Set<String> attached = new LinkedHashSet<>();
+        private boolean aborted;
+        
+        SharedSolve(String leaderJobId, CompletableFuture<SolvedResult> result) {
+            this.leaderJobId = leaderJobId;
+            this.result = result;
+            if (leaderJobId != null) {
+                attached.add(leaderJobId);
+            }
+        }
+        
+        String leaderJobId() { return leaderJobId; }
+        CompletableFuture<SolvedResult> result() { return result; }
+        
+        /**
+         * Adjuntar un trabajo; false si la resolución ya terminó o se abortó
+         */
+        synchronized boolean attach(String jobId) {
+            if (aborted || result.isDone()) {
+                return false;
+            }
+            attached.add(jobId);
+            return true;
+        }
+        
+        /**
+         * Desvincular un trabajo cancelado; true si era el último adjunto (la resolución queda abortada)
+         */
+        synchronized boolean detach(String jobId) {
+            if (!attached.remove(jobId)) {
+                return false;
+            }
+            aborted = attached.isEmpty();
+            return aborted;
+        }
+        
+        /**
+         * Retirar un trabajo adjunto que terminó por otra vía (descartado o fallido)
+         */
+        synchronized void leave(String jobId) {
+            attached.remove(jobId);
+        }
+        
+        synchronized boolean isAttached(String jobId) {
+            return attached.contains(jobId);
+        }
+        
+        /**
+         * Primer trabajo adjunto aún vivo; el líder si no queda ninguno
+         */
+        synchronized String ownerJobId() {
+            return attached.isEmpty() ? leaderJobId : attached.iterator().next();
+        }
+    }
+    
+    /**
+     * Envío admitido cuyo trabajo aún no se ha iniciado
+     */
+    private static final class PendingSubmission {
+        private final OptimizationJobContext context;
+        private final AdmissionController.AdmissionTicket ticket;
+        private final SharedSolve sharedSolve;
+        private OptimizationJob job;
+        
+        private PendingSubmission(OptimizationJobContext context, AdmissionController.AdmissionTicket ticket,
+                                  SharedSolve sharedSolve) {
+            this.context = context;
+            this.ticket = ticket;
+            this.sharedSolve = sharedSolve;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package com.exiua.routeoptimizer.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -21,6 +24,9 @@ public class EnrichedRouteOptimizationIntegrationService {
 
     private static final Logger log = LoggerFactory.getLogger(EnrichedRouteOptimizationIntegrationService.class);
     
+    // Costo promedio a partir del cual un proveedor se considera sin servicios con precio
+    private static final double HIGH_COST_THRESHOLD = 999999.0;
+    
     @Autowired
     private ProcessingPOIBuilderService poiBuilderService;
 
@@ -46,6 +52,47 @@ public class EnrichedRouteOptimizationIntegrationService {
         // 1. Construir POIs enriquecidos
         List<EnrichedProcessingPOI> enrichedPOIs = poiBuilderService.buildEnrichedPOIsBatch(providerIds);
         
+        return buildRequest(userId, enrichedPOIs, optimizeFor);
+    }
+    
+    /**
+     * Enriquece una sola vez la unión de proveedores de un lote de rutas
+     * 
+     * @return Mapa providerId -> POI enriquecido
+     */
+    public Map<Long, EnrichedProcessingPOI> enrichProviders(Collection<Long> providerIds) {
+        return poiBuilderService.buildEnrichedPOIsByProvider(providerIds);
+    }
+    
+    /**
+     * Crea un RouteOptimizationRequest a partir de POIs ya enriquecidos (compartidos entre
+     * las rutas de un lote). Aplica la misma validación que validateProvidersForOptimization
+     * (al menos un proveedor con costos válidos) sin volver a consultar a los proveedores.
+     * 
+     * @param poisByProvider POIs enriquecidos de la unión de proveedores del lote
+     */
+    public RouteOptimizationRequest createOptimizationRequestFromEnrichedPOIs(
+            Long userId,
+            List<Long> providerIds,
+            Map<Long, EnrichedProcessingPOI> poisByProvider,
+            String optimizeFor,
+            Double maxBudget) {
+        
+        List<EnrichedProcessingPOI> enrichedPOIs = providerIds.stream()
+            .map(poisByProvider::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        
+        boolean anyValidCost = enrichedPOIs.stream()
+            .anyMatch(poi -> poi.getCost() != null && poi.getCost() < HIGH_COST_THRESHOLD);
+        if (!anyValidCost) {
+            throw new IllegalArgumentException("Los proveedores no tienen datos válidos para optimización");
+        }
+        
+        return buildRequest(userId, enrichedPOIs, optimizeFor);
+    }
+    
+    private RouteOptimizationRequest buildRequest(Long userId, List<EnrichedProcessingPOI> enrichedPOIs, String optimizeFor) {
         if (enrichedPOIs.isEmpty()) {
             log.warn("No se pudieron construir POIs enriquecidos para los proveedores");
             throw new IllegalStateException("No se pudieron obtener datos de proveedores");
@@ -0,0 +1,275 @@
+package com.exiua.routeoptimizer.service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.exiua.routeoptimizer.dto.JobStatusResponseDTO;
+import com.exiua.routeoptimizer.model.JobState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bus de eventos en proceso para las suscripciones SSE y las consultas long-poll al estado de los trabajos.
+ * {@link JobStateStore} notifica cada cambio; el bus marca el trabajo como pendiente y un hilo de
+ * despacho construye y serializa su estado una sola vez para todos los suscriptores. Los cambios
+ * que llegan mientras el despacho está pendiente se agrupan en un único evento con el estado más
+ * reciente. Un suscriptor inactivo no retiene hilos (las conexiones SSE son asíncronas); solo
+ * recibe un comentario periódico para detectar conexiones cerradas. Las consultas long-poll
+ * esperan un cambio de versión del trabajo sin retener hilos y se despiertan en el mismo despacho.
+ *
+ * Los trabajos que se ejecutan en otra instancia (modo queue) no generan cambios locales: para
+ * ellos el estado se vuelve a leer en cada latido.
+ */
+@Component
+public class JobEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobEventBus.class);
+
+    private static final String STATUS_EVENT = "status";
+
+    private final EnhancedRouteOptimizationService optimizationService;
+    private final JobStateStore jobStateStore;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<VersionWaiter>> waiters = new ConcurrentHashMap<>();
+    private final Set<String> pendingDispatch = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger(0);
+    private final ExecutorService dispatcher;
+
+    @Value("${optimization.job-events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    public JobEventBus(EnhancedRouteOptimizationService optimizationService, JobStateStore jobStateStore,
+                       ObjectMapper objectMapper,
+                       @Value("${optimization.job-events.dispatch-threads:2}") int dispatchThreads) {
+        this.optimizationService = optimizationService;
+        this.jobStateStore = jobStateStore;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "JobEvents-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        jobStateStore.addChangeListener(this::onJobChanged);
+    }
+
+    /**
+     * Suscribirse al estado de un trabajo; el primer evento es el estado actual.
+     * Si el trabajo ya terminó, la conexión se cierra tras ese evento.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        Optional<JobStatusResponseDTO> current = optimizationService.getJobStatus(jobId);
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        if (!isTerminal(current.get())) {
+            // Registrar antes de enviar el estado inicial: un cambio intermedio llega como evento extra
+            subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+            subscriberCount.incrementAndGet();
+            emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+            emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+            emitter.onError(error -> unsubscribe(jobId, emitter));
+            // Releer después de registrar para no perder un cambio ocurrido entre ambas operaciones
+            current = optimizationService.getJobStatus(jobId);
+        }
+        current.ifPresent(status -> {
+            send(jobId, emitter, serialize(status));
+            if (isTerminal(status)) {
+                emitter.complete();
+            }
+        });
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Esperar a que la versión del trabajo cambie respecto de knownVersion (o a que termine);
+     * onChange se ejecuta una sola vez en un hilo de despacho. Devuelve la acción que cancela la espera.
+     */
+    public Runnable awaitChange(String jobId, long knownVersion, Runnable onChange) {
+        VersionWaiter waiter = new VersionWaiter(knownVersion, onChange);
+        waiters.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet()).add(waiter);
+        // Un cambio ocurrido antes de registrarse se detecta en el despacho
+        scheduleDispatch(jobId);
+        return () -> removeWaiter(jobId, waiter);
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void onJobChanged(String jobId) {
+        if (subscribers.containsKey(jobId) || waiters.containsKey(jobId)) {
+            scheduleDispatch(jobId);
+        }
+    }
+
+    private void scheduleDispatch(String jobId) {
+        if (pendingDispatch.add(jobId)) {
+            dispatcher.execute(() -> dispatch(jobId));
+        }
+    }
+
+    /**
+     * Enviar el estado actual del trabajo a todos sus suscriptores
+     */
+    private void dispatch(String jobId) {
+        pendingDispatch.remove(jobId);
+        wakeWaiters(jobId);
+        Set<SseEmitter> emitters = subscribers.get(jobId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        Optional<JobStatusResponseDTO> status;
+        try {
+            status = optimizationService.getJobStatus(jobId);
+        } catch (RuntimeException e) {
+            logger.warn("Error obteniendo estado del job {} para sus suscriptores: {}", jobId, e.getMessage());
+            return;
+        }
+        if (status.isEmpty()) {
+            return;
+        }
+        String payload = serialize(status.get());
+        boolean terminal = isTerminal(status.get());
+        for (SseEmitter emitter : emitters) {
+            send(jobId, emitter, payload);
+            if (terminal) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void wakeWaiters(String jobId) {
+        Set<VersionWaiter> jobWaiters = waiters.get(jobId);
+        if (jobWaiters == null || jobWaiters.isEmpty()) {
+            return;
+        }
+        Optional<JobState> state;
+        try {
+            state = optimizationService.getJobState(jobId);
+        } catch (RuntimeException e) {
+            logger.warn("Error obteniendo versión del job {}: {}", jobId, e.getMessage());
+            return;
+        }
+        for (VersionWaiter waiter : jobWaiters) {
+            boolean changed = state.isEmpty() || state.get().isTerminal()
+                || state.get().getVersion() != waiter.knownVersion();
+            if (changed && removeWaiter(jobId, waiter)) {
+                try {
+                    waiter.onChange().run();
+                } catch (RuntimeException e) {
+                    logger.warn("Error respondiendo consulta long-poll del job {}: {}", jobId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean removeWaiter(String jobId, VersionWaiter waiter) {
+        Set<VersionWaiter> jobWaiters = waiters.get(jobId);
+        if (jobWaiters == null || !jobWaiters.remove(waiter)) {
+            return false;
+        }
+        if (jobWaiters.isEmpty()) {
+            waiters.remove(jobId, jobWaiters);
+        }
+        return true;
+    }
+
+    private void send(String jobId, SseEmitter emitter, String payload) {
+        if (payload == null) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado: Spring completa el emitter y el callback lo elimina
+            logger.debug("Suscriptor del job {} desconectado: {}", jobId, e.getMessage());
+            unsubscribe(jobId, emitter);
+        }
+    }
+
+    private void unsubscribe(String jobId, SseEmitter emitter) {
+        Set<SseEmitter> emitters = subscribers.get(jobId);
+        if (emitters != null && emitters.remove(emitter)) {
+            subscriberCount.decrementAndGet();
+            if (emitters.isEmpty()) {
+                subscribers.remove(jobId, emitters);
+            }
+        }
+    }
+
+    /**
+     * Latido: comentario SSE para detectar conexiones cerradas y relectura de los trabajos
+     * que no están activos en esta instancia
+     */
+    @Scheduled(fixedDelayString = "${optimization.job-events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        Set<String> waitingJobs = new HashSet<>(waiters.keySet());
+        waitingJobs.removeAll(subscribers.keySet());
+        for (String jobId : waitingJobs) {
+            if (jobStateStore.get(jobId).isEmpty()) {
+                scheduleDispatch(jobId);
+            }
+        }
+        for (Map.Entry<String, Set<SseEmitter>> entry : subscribers.entrySet()) {
+            String jobId = entry.getKey();
+            if (jobStateStore.get(jobId).isEmpty()) {
+                scheduleDispatch(jobId);
+                continue;
+            }
+            for (SseEmitter emitter : entry.getValue()) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(jobId, emitter);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+        waiters.clear();
+    }
+
+    private String serialize(JobStatusResponseDTO status) {
+        try {
+            return objectMapper.writeValueAsString(status);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializando estado del job {}: {}", status.getJobId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private record VersionWaiter(long knownVersion, Runnable onChange) {}
+
+    private static boolean isTerminal(JobStatusResponseDTO status) {
+        return "COMPLETED".equals(status.getStatus()) || "FAILED".equals(status.getStatus())
+            || "CANCELLED".equals(status.getStatus());
+    }
+}
@@ -0,0 +1,146 @@
+package com.exiua.routeoptimizer.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.client.AdaptiveConcurrencyLimiter;
+
+/**
+ * Modelo en línea de la duración de los trabajos, a partir de las duraciones observadas.
+ * Cada combinación de modo de resolución, tamaño (POIs agrupados en potencias de 2) y criterio de
+ * optimización tiene un histograma HDR; además cada tamaño tiene uno agregado para todos los criterios,
+ * usado mientras el específico no reúne suficientes muestras. Los histogramas cubren una ventana
+ * deslizante (ventana actual y anterior) para seguir los cambios de carga del solver.
+ *
+ * La duración esperada es la mediana; el tiempo restante de un trabajo en curso es la mediana
+ * condicionada a lo que ya lleva ejecutándose (los trabajos lentos se siguen estimando lentos).
+ */
+@Component
+public class JobLatencyModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLatencyModel.class);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final String ANY_PREFERENCE = "*";
+
+    public enum SolverMode { REMOTE, LOCAL }
+
+    private final Map<String, LatencyBucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${optimization.latency-model.min-samples:20}")
+    private int minSamples;
+
+    /**
+     * Registrar la duración de un trabajo resuelto
+     */
+    public void record(SolverMode mode, int poiCount, String optimizeFor, long durationMillis) {
+        long value = Math.max(1, durationMillis);
+        bucket(key(mode, poiCount, optimizeFor)).record(value);
+        bucket(key(mode, poiCount, ANY_PREFERENCE)).record(value);
+    }
+
+    /**
+     * Duración esperada (mediana) de un trabajo; vacío si aún no hay muestras suficientes.
+     * Sin criterio de optimización se usa el histograma agregado del tamaño.
+     */
+    public OptionalLong expectedMillis(SolverMode mode, int poiCount, String optimizeFor) {
+        return remainingMillis(mode, poiCount, optimizeFor, 0);
+    }
+
+    /**
+     * Tiempo restante esperado de un trabajo que lleva elapsedMillis ejecutándose: mediana de las
+     * duraciones observadas mayores que lo transcurrido, menos lo transcurrido
+     */
+    public OptionalLong remainingMillis(SolverMode mode, int poiCount, String optimizeFor, long elapsedMillis) {
+        Histogram histogram = histogramFor(mode, poiCount, optimizeFor);
+        if (histogram == null) {
+            return OptionalLong.empty();
+        }
+        double elapsedPercentile = elapsedMillis > 0 ? histogram.getPercentileAtOrBelowValue(elapsedMillis) : 0.0;
+        double targetPercentile = Math.min(100.0, elapsedPercentile + (100.0 - elapsedPercentile) / 2);
+        long total = histogram.getValueAtPercentile(targetPercentile);
+        return OptionalLong.of(Math.max(0, total - elapsedMillis));
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Avanzar la ventana: se descartan las observaciones de la ventana anterior
+     */
+    @Scheduled(fixedDelayString = "${optimization.latency-model.window-ms:1800000}",
+               initialDelayString = "${optimization.latency-model.window-ms:1800000}")
+    public void rotate() {
+        buckets.values().forEach(LatencyBucket::rotate);
+        logger.debug("Ventana del modelo de latencia avanzada ({} grupos)", buckets.size());
+    }
+
+    private Histogram histogramFor(SolverMode mode, int poiCount, String optimizeFor) {
+        Histogram specific = snapshot(key(mode, poiCount, optimizeFor));
+        if (specific != null) {
+            return specific;
+        }
+        return snapshot(key(mode, poiCount, ANY_PREFERENCE));
+    }
+
+    private Histogram snapshot(String key) {
+        LatencyBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return null;
+        }
+        Histogram merged = bucket.snapshot();
+        return merged.getTotalCount() >= minSamples ? merged : null;
+    }
+
+    private LatencyBucket bucket(String key) {
+        return buckets.computeIfAbsent(key, k -> new LatencyBucket());
+    }
+
+    private static String key(SolverMode mode, int poiCount, String optimizeFor) {
+        int poiBucket = AdaptiveConcurrencyLimiter.sizeBucket(poiCount);
+        String preference = optimizeFor != null ? optimizeFor.toLowerCase(Locale.ROOT) : ANY_PREFERENCE;
+        return mode + "|" + poiBucket + "|" + preference;
+    }
+
+    /**
+     * Histogramas de la ventana actual y la anterior de un grupo. La unión de ambos se construye
+     * solo cuando cambian (nueva duración o rotación) y se comparte entre consultas: es una copia
+     * que no se modifica, así que los percentiles se calculan sobre ella sin tomar el lock.
+     */
+    private static final class LatencyBucket {
+        private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram previous = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram merged;
+
+        synchronized void record(long value) {
+            current.recordValue(value);
+            merged = null;
+        }
+
+        synchronized void rotate() {
+            Histogram recycled = previous;
+            recycled.reset();
+            previous = current;
+            current = recycled;
+            merged = null;
+        }
+
+        synchronized Histogram snapshot() {
+            if (merged == null) {
+                merged = current.copy();
+                merged.add(previous);
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.exiua.routeoptimizer.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.model.OptimizationJob;
+import com.exiua.routeoptimizer.model.ResultSummary;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Buffer write-behind para actualizaciones de estado de trabajos.
+ * Conserva solo el último estado por trabajo y lo escribe en un único batch JDBC
+ * cada {@code optimization.progress-buffer.flush-interval-ms}. Las transiciones
+ * terminales (COMPLETED, FAILED, CANCELLED) se escriben de inmediato.
+ */
+@Component
+public class JobProgressBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobProgressBuffer.class);
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 255;
+
+    // Nunca se sobrescribe una fila que ya está en estado terminal
+    private static final String UPDATE_SQL =
+        "UPDATE optimization_jobs SET status = COALESCE(?, status), progress_percentage = COALESCE(?, progress_percentage), " +
+        "updated_at = ?, completed_at = COALESCE(?, completed_at), " +
+        "error_message = COALESCE(?, error_message), result_data = COALESCE(?, result_data), " +
+        "total_distance_km = COALESCE(?, total_distance_km), total_time_minutes = COALESCE(?, total_time_minutes), " +
+        "optimization_score = COALESCE(?, optimization_score), algorithm = COALESCE(?, algorithm), " +
+        "stop_count = COALESCE(?, stop_count), result_size_bytes = COALESCE(?, result_size_bytes) " +
+        "WHERE job_id = ? AND status NOT IN ('COMPLETED', 'FAILED', 'CANCELLED')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<String, PendingUpdate> dirtyJobs = new ConcurrentHashMap<>();
+
+    public JobProgressBuffer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registrar cambio de estado/progreso
+     */
+    public void recordStatus(String jobId, OptimizationJob.JobStatus status, Integer progress) {
+        PendingUpdate update = new PendingUpdate(jobId, status);
+        update.progress = progress;
+        record(update);
+    }
+
+    /**
+     * Registrar transición con mensaje de error
+     */
+    public void recordError(String jobId, OptimizationJob.JobStatus status, String errorMessage) {
+        PendingUpdate update = new PendingUpdate(jobId, status);
+        update.errorMessage = truncate(errorMessage);
+        record(update);
+    }
+
+    /**
+     * Registrar resultado y su resumen; se escriben junto con la siguiente transición de estado.
+     * Con resultData null solo se registra el resumen (el resultado ya se guardó en streaming).
+     */
+    public void recordResult(String jobId, String resultData, ResultSummary summary) {
+        PendingUpdate update = new PendingUpdate(jobId, null);
+        update.resultData = resultData;
+        update.summary = summary;
+        record(update);
+    }
+
+    private void record(PendingUpdate update) {
+        PendingUpdate merged = dirtyJobs.merge(update.jobId, update, PendingUpdate::mergeWith);
+        if (merged.isTerminal()) {
+            flushJob(update.jobId);
+        }
+    }
+
+    /**
+     * Escribir de inmediato el estado pendiente de un trabajo
+     */
+    public void flushJob(String jobId) {
+        PendingUpdate update = dirtyJobs.remove(jobId);
+        if (update != null) {
+            write(List.of(update));
+        }
+    }
+
+    /**
+     * Escribir en un solo batch todos los trabajos con cambios pendientes
+     */
+    @Scheduled(fixedDelayString = "${optimization.progress-buffer.flush-interval-ms:500}")
+    public void flush() {
+        if (dirtyJobs.isEmpty()) {
+            return;
+        }
+
+        List<PendingUpdate> batch = new ArrayList<>(dirtyJobs.size());
+        for (String jobId : dirtyJobs.keySet()) {
+            PendingUpdate update = dirtyJobs.remove(jobId);
+            if (update != null) {
+                batch.add(update);
+            }
+        }
+        write(batch);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public int getPendingCount() {
+        return dirtyJobs.size();
+    }
+
+    private void write(List<PendingUpdate> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    PendingUpdate update = batch.get(i);
+                    ps.setString(1, update.status != null ? update.status.name() : null);
+                    if (update.progress != null) {
+                        ps.setInt(2, update.progress);
+                    } else {
+                        ps.setNull(2, Types.INTEGER);
+                    }
+                    ps.setTimestamp(3, Timestamp.valueOf(update.updatedAt));
+                    ps.setTimestamp(4, update.completedAt != null ? Timestamp.valueOf(update.completedAt) : null);
+                    ps.setString(5, update.errorMessage);
+                    ps.setString(6, update.resultData);
+                    ResultSummary summary = update.summary;
+                    ps.setObject(7, summary != null ? summary.totalDistanceKm() : null, Types.DOUBLE);
+                    ps.setObject(8, summary != null ? summary.totalTimeMinutes() : null, Types.INTEGER);
+                    ps.setObject(9, summary != null ? summary.optimizationScore() : null, Types.DOUBLE);
+                    ps.setString(10, summary != null ? summary.algorithm() : null);
+                    ps.setObject(11, summary != null ? summary.stopCount() : null, Types.INTEGER);
+                    ps.setObject(12, summary != null ? summary.sizeBytes() : null, Types.BIGINT);
+                    ps.setString(13, update.jobId);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            logger.debug("Flush de {} actualizaciones de trabajos", batch.size());
+
+        } catch (Exception e) {
+            logger.error("Error escribiendo batch de {} actualizaciones de trabajos: {}", batch.size(), e.getMessage());
+            // Reencolar sin pisar estados más recientes registrados mientras tanto
+            for (PendingUpdate update : batch) {
+                dirtyJobs.merge(update.jobId, update, (newer, failed) -> failed.mergeWith(newer));
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= ERROR_MESSAGE_MAX_LENGTH) {
+            return message;
+        }
+        return message.substring(0, ERROR_MESSAGE_MAX_LENGTH);
+    }
+
+    private static boolean isTerminal(OptimizationJob.JobStatus status) {
+        return status == OptimizationJob.JobStatus.COMPLETED
+            || status == OptimizationJob.JobStatus.FAILED
+            || status == OptimizationJob.JobStatus.CANCELLED;
+    }
+
+    /**
+     * Último estado conocido de un trabajo pendiente de escritura
+     */
+    private static final class PendingUpdate {
+        private final String jobId;
+        private OptimizationJob.JobStatus status;
+        private Integer progress;
+        private String errorMessage;
+        private String resultData;
+        private ResultSummary summary;
+        private LocalDateTime updatedAt;
+        private LocalDateTime completedAt;
+
+        private PendingUpdate(String jobId, OptimizationJob.JobStatus status) {
+            this.jobId = jobId;
+            this.status = status;
+            this.updatedAt = LocalDateTime.now();
+            if (status != null && JobProgressBuffer.isTerminal(status)) {
+                this.completedAt = this.updatedAt;
+            }
+        }
+
+        private boolean isTerminal() {
+            return status != null && JobProgressBuffer.isTerminal(status);
+        }
+
+        /**
+         * Combinar con una actualización más reciente. Un estado terminal no se reemplaza
+         * por uno no terminal.
+         */
+        private PendingUpdate mergeWith(PendingUpdate newer) {
+            boolean keepStatus = isTerminal() && !newer.isTerminal();
+            if (newer.status != null && !keepStatus) {
+                status = newer.status;
+                completedAt = newer.completedAt != null ? newer.completedAt : completedAt;
+            }
+            if (newer.progress != null && !keepStatus) {
+                progress = newer.progress;
+            }
+            if (newer.errorMessage != null) {
+                errorMessage = newer.errorMessage;
+            }
+            if (newer.resultData != null) {
+                resultData = newer.resultData;
+            }
+            if (newer.summary != null) {
+                summary = newer.summary;
+            }
+            updatedAt = newer.updatedAt;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.exiua.routeoptimizer.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.model.JobState;
+import com.exiua.routeoptimizer.model.OptimizationJob;
+import com.exiua.routeoptimizer.model.ResultSummary;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Almacén concurrente en memoria del estado de los trabajos.
+ * Mantiene todos los trabajos PENDING/PROCESSING y los terminados recientemente
+ * (acotados por cantidad y TTL), de modo que las consultas de estado solo
+ * llegan a la base de datos cuando hay un fallo de caché. Cada cambio de un trabajo se notifica
+ * a los listeners registrados (p. ej. {@link JobEventBus}) con su jobId.
+ */
+@Component
+public class JobStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobStateStore.class);
+
+    private final ConcurrentHashMap<String, JobState> states = new ConcurrentHashMap<>();
+    // Orden de finalización para expulsar primero los trabajos terminados más antiguos
+    private final ConcurrentLinkedQueue<String> terminalOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger terminalCount = new AtomicInteger(0);
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    @Value("${optimization.job-state.max-completed-entries:10000}")
+    private int maxCompletedEntries;
+
+    @Value("${optimization.job-state.completed-ttl-minutes:30}")
+    private int completedTtlMinutes;
+
+    @Value("${optimization.job-state.max-result-chars:262144}")
+    private int maxResultChars;
+
+    /**
+     * Registrar un trabajo recién creado
+     */
+    public JobState register(OptimizationJob job) {
+        JobState state = JobState.fromJob(job);
+        states.put(job.getJobId(), state);
+        return state;
+    }
+
+    /**
+     * Registrar un listener de cambios; se invoca en el hilo que hizo el cambio, por lo que no debe bloquear
+     */
+    public void addChangeListener(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    public Optional<JobState> get(String jobId) {
+        return Optional.ofNullable(states.get(jobId));
+    }
+
+    /**
+     * Guardar en memoria un trabajo leído de la base de datos tras un fallo de caché.
+     * Solo se conservan trabajos terminados: el estado de un trabajo activo que no está
+     * en memoria pertenece a otra instancia y podría quedar obsoleto.
+     */
+    public JobState cacheLoaded(OptimizationJob job) {
+        JobState state = JobState.fromJob(job);
+        if (state.isTerminal()) {
+            applyResultLimit(state);
+            if (states.putIfAbsent(job.getJobId(), state) == null) {
+                trackTerminal(job.getJobId());
+            }
+        }
+        return state;
+    }
+
+    public void updateStatus(String jobId, OptimizationJob.JobStatus status, Integer progress) {
+        update(jobId, status, state -> {
+            if (progress != null) {
+                state.setProgressPercentage(progress);
+            }
+        });
+    }
+
+    public void updateError(String jobId, OptimizationJob.JobStatus status, String errorMessage) {
+        update(jobId, status, state -> state.setErrorMessage(errorMessage));
+    }
+
+    /**
+     * Registrar el resultado de un trabajo; resultData es null si solo está guardado en la base de datos
+     */
+    public void updateResult(String jobId, String resultData, ResultSummary summary) {
+        JobState state = states.get(jobId);
+        if (state != null) {
+            state.setResultSummary(summary);
+            state.setPartialResult(null);
+            state.setResultStored(true);
+            state.setResultJson(resultData != null && resultData.length() <= maxResultChars ? resultData : null);
+            notifyChanged(jobId);
+        }
+    }
+
+    /**
+     * Registrar la mejor ruta parcial de un trabajo en proceso (solo en memoria, no se persiste)
+     */
+    public void updatePartialResult(String jobId, JsonNode partialResult) {
+        JobState updated = states.computeIfPresent(jobId, (id, state) -> {
+            if (!state.isTerminal()) {
+                state.setPartialResult(partialResult);
+            }
+            return state;
+        });
+        if (updated != null && !updated.isTerminal()) {
+            notifyChanged(jobId);
+        }
+    }
+
+    /**
+     * Actualizar la hora estimada de finalización de un trabajo en proceso (solo en memoria).
+     * No genera un cambio propio: se publica con la siguiente actualización de estado.
+     */
+    public void updateEstimate(String jobId, LocalDateTime estimatedCompletionTime) {
+        states.computeIfPresent(jobId, (id, state) -> {
+            if (!state.isTerminal()) {
+                state.setEstimatedCompletionTime(estimatedCompletionTime);
+            }
+            return state;
+        });
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    private void update(String jobId, OptimizationJob.JobStatus status, Consumer<JobState> mutation) {
+        boolean[] becameTerminal = {false};
+        boolean[] changed = {false};
+        states.computeIfPresent(jobId, (id, state) -> {
+            // Un estado terminal no se reemplaza por uno posterior
+            if (state.isTerminal()) {
+                return state;
+            }
+            changed[0] = true;
+            mutation.accept(state);
+            state.setStatus(status);
+            becameTerminal[0] = state.isTerminal();
+            if (becameTerminal[0]) {
+                state.setPartialResult(null);
+            }
+            return state;
+        });
+        if (becameTerminal[0]) {
+            trackTerminal(jobId);
+        }
+        if (changed[0]) {
+            notifyChanged(jobId);
+        }
+    }
+
+    private void notifyChanged(String jobId) {
+        JobState state = states.get(jobId);
+        if (state != null) {
+            state.markChanged();
+        }
+        for (Consumer<String> listener : changeListeners) {
+            try {
+                listener.accept(jobId);
+            } catch (RuntimeException e) {
+                logger.warn("Error notificando cambio del job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private void applyResultLimit(JobState state) {
+        if (state.getResultJson() != null && state.getResultJson().length() > maxResultChars) {
+            state.setResultJson(null);
+        }
+    }
+
+    private void trackTerminal(String jobId) {
+        terminalOrder.add(jobId);
+        if (terminalCount.incrementAndGet() > maxCompletedEntries) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        String jobId = terminalOrder.poll();
+        if (jobId != null) {
+            terminalCount.decrementAndGet();
+            states.remove(jobId);
+        }
+    }
+
+    /**
+     * Expulsar trabajos terminados cuyo TTL expiró
+     */
+    @Scheduled(fixedDelayString = "${optimization.job-state.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(completedTtlMinutes);
+        int evicted = 0;
+        String jobId;
+        while ((jobId = terminalOrder.peek()) != null) {
+            JobState state = states.get(jobId);
+            LocalDateTime finishedAt = state != null ? state.getUpdatedAt() : null;
+            if (finishedAt != null && finishedAt.isAfter(cutoff)) {
+                break;
+            }
+            evictOldest();
+            evicted++;
+        }
+        if (evicted > 0) {
+            logger.debug("Expulsados {} trabajos terminados del almacén en memoria", evicted);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.exiua.routeoptimizer.service;
+
+import java.util.concurrent.CancellationException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Solver heurístico en proceso para el orden de visita de una ruta abierta que empieza en el
+ * primer POI. Construye la ruta con vecino más cercano y la mejora con 2-opt (invertir tramos)
+ * y Or-opt (mover tramos de 1 a 3 POIs, en ambos sentidos) sobre la matriz de distancias
+ * haversine, hasta no encontrar mejoras o agotar el tiempo asignado.
+ *
+ * Lo usan el resultado de respaldo, los trabajos degradados por plazo y, si se habilita, las
+ * solicitudes pequeñas que no justifican una llamada al servicio de procesamiento.
+ */
+@Component
+public class LocalRouteSolver {
+
+    public static final String ALGORITHM = "NearestNeighbor-2opt-OrOpt";
+
+    // Mejora mínima (km) para aplicar un movimiento; evita ciclos por redondeo
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    @Value("${optimization.local-solver.time-limit-ms:200}")
+    private long timeLimitMs;
+
+    // Solicitudes con hasta esta cantidad de POIs se resuelven localmente (0 = deshabilitado)
+    @Value("${optimization.local-solver.max-pois:0}")
+    private int maxPois;
+
+    @Value("${optimization.local-solver.average-speed-kmh:30}")
+    private double averageSpeedKmh;
+
+    /**
+     * true si la solicitud es lo bastante pequeña para resolverse sin el servicio de procesamiento
+     */
+    public boolean handles(int poiCount) {
+        return poiCount > 0 && poiCount <= maxPois;
+    }
+
+    /**
+     * Minutos de traslado para una distancia a la velocidad media configurada
+     */
+    public int travelMinutes(double distanceKm) {
+        return (int) Math.round(distanceKm / Math.max(averageSpeedKmh, 1.0) * 60);
+    }
+
+    /**
+     * Resolver el orden de visita; distances[i][j] es la distancia en km entre los POIs i y j.
+     * Responde a la interrupción del hilo (cancelación del trabajo).
+     */
+    public Route solve(double[][] distances) {
+        int n = distances.length;
+        if (n <= 2) {
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            return new Route(order, length(order, distances));
+        }
+
+        long deadline = System.nanoTime() + timeLimitMs * 1_000_000;
+        int[] order = nearestNeighbour(distances);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(order, distances, deadline);
+            improved |= orOpt(order, distances, deadline);
+        }
+        return new Route(order, length(order, distances));
+    }
+
+    private static int[] nearestNeighbour(double[][] d) {
+        int n = d.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+        for (int position = 1; position < n; position++) {
+            int last = order[position - 1];
+            int nearest = -1;
+            for (int candidate = 1; candidate < n; candidate++) {
+                if (!visited[candidate] && (nearest < 0 || d[last][candidate] < d[last][nearest])) {
+                    nearest = candidate;
+                }
+            }
+            visited[nearest] = true;
+            order[position] = nearest;
+        }
+        return order;
+    }
+
+    /**
+     * Una pasada de 2-opt con primera mejora: invertir order[i..j] si acorta la ruta.
+     * En una ruta abierta el último tramo no tiene sucesor.
+     */
+    private static boolean twoOpt(int[] order, double[][] d, long deadline) {
+        int n = order.length;
+        boolean improved = false;
+        for (int i = 1; i < n - 1; i++) {
+            checkInterrupted();
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            for (int j = i + 1; j < n; j++) {
+                int before = order[i - 1];
+                int after = j + 1 < n ? order[j + 1] : -1;
+                double delta = d[before][order[j]] - d[before][order[i]];
+                if (after >= 0) {
+                    delta += d[order[i]][after] - d[order[j]][after];
+                }
+                if (delta < -EPSILON) {
+                    reverse(order, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Una pasada de Or-opt: mover el tramo order[i..i+len-1] (directo o invertido) entre otros
+     * dos POIs consecutivos o al final de la ruta si acorta la ruta
+     */
+    private static boolean orOpt(int[] order, double[][] d, long deadline) {
+        int n = order.length;
+        boolean improved = false;
+        for (int len = 1; len <= MAX_SEGMENT_LENGTH && len < n - 1; len++) {
+            for (int i = 1; i + len <= n; i++) {
+                checkInterrupted();
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int first = order[i];
+                int last = order[i + len - 1];
+                int before = order[i - 1];
+                int after = i + len < n ? order[i + len] : -1;
+                double removeGain = d[before][first] + (after >= 0 ? d[last][after] - d[before][after] : 0);
+
+                int bestPosition = -1;
+                boolean bestReversed = false;
+                double bestCost = removeGain - EPSILON;
+                // Insertar entre order[p] y order[p + 1] (o al final si p es el último)
+                for (int p = 0; p < n; p++) {
+                    if (p >= i - 1 && p <= i + len - 1) {
+                        continue;
+                    }
+                    int u = order[p];
+                    int v = p + 1 < n ? order[p + 1] : -1;
+                    double base = v >= 0 ? d[u][v] : 0;
+                    double forward = d[u][first] + (v >= 0 ? d[last][v] : 0) - base;
+                    double reversed = d[u][last] + (v >= 0 ? d[first][v] : 0) - base;
+                    if (forward < bestCost) {
+                        bestCost = forward;
+                        bestPosition = p;
+                        bestReversed = false;
+                    }
+                    if (reversed < bestCost) {
+                        bestCost = reversed;
+                        bestPosition = p;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPosition >= 0) {
+                    moveSegment(order, i, len, bestPosition, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Mover order[i..i+len-1] a continuación de la posición p (índice previo al movimiento)
+     */
+    private static void moveSegment(int[] order, int i, int len, int p, boolean reversed) {
+        int[] segment = new int[len];
+        for (int k = 0; k < len; k++) {
+            segment[k] = order[reversed ? i + len - 1 - k : i + k];
+        }
+        if (p < i) {
+            // Desplazar order[p+1..i-1] hacia la derecha y colocar el tramo tras p
+            System.arraycopy(order, p + 1, order, p + 1 + len, i - p - 1);
+            System.arraycopy(segment, 0, order, p + 1, len);
+        } else {
+            // Desplazar order[i+len..p] hacia la izquierda y colocar el tramo al final del hueco
+            System.arraycopy(order, i + len, order, i, p - i - len + 1);
+            System.arraycopy(segment, 0, order, p - len + 1, len);
+        }
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int tmp = order[from];
+            order[from++] = order[to];
+            order[to--] = tmp;
+        }
+    }
+
+    private static double length(int[] order, double[][] d) {
+        double total = 0.0;
+        for (int k = 1; k < order.length; k++) {
+            total += d[order[k - 1]][order[k]];
+        }
+        return total;
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Resolución local interrumpida por cancelación del trabajo");
+        }
+    }
+
+    /**
+     * Orden de visita (índices de la matriz) y distancia total en km
+     */
+    public record Route(int[] order, double distanceKm) {}
+}
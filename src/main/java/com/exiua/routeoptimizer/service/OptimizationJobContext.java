@@ -0,0 +1,143 @@
+package com.exiua.routeoptimizer.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import com.exiua.routeoptimizer.dto.RouteProcessingRequestDTO;
+import com.exiua.routeoptimizer.model.OptimizationStage;
+import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
+
+import reactor.core.Disposable;
+
+/**
+ * Estado compartido entre las etapas del pipeline de un trabajo de optimización
+ */
+public class OptimizationJobContext {
+
+    private final String jobId;
+    private final RouteOptimizationRequest request;
+    private final String fingerprint;
+    // Resolución compartida con solicitudes idénticas; solo el líder la completa
+    private final CompletableFuture<SolvedResult> sharedSolve;
+    private final boolean leader;
+    // Generación de la caché de resultados al iniciar; ver OptimizationResultCache
+    private final long cacheGeneration;
+
+    private volatile OptimizationStage currentStage;
+    private volatile RouteProcessingRequestDTO processingRequest;
+    private volatile double[][] distanceMatrix;
+    private volatile boolean fallbackResult;
+    private volatile boolean downgraded;
+    // Inicio del procesamiento (System.nanoTime), 0 mientras el trabajo no empieza
+    private volatile long processingStartedNanos;
+
+    // Cancelación: hilo que ejecuta la etapa actual y suscripción de la resolución remota
+    private volatile boolean cancelled;
+    private Thread stageThread;
+    private Disposable solveSubscription;
+
+    public OptimizationJobContext(String jobId, RouteOptimizationRequest request, String fingerprint,
+                                  CompletableFuture<SolvedResult> sharedSolve, boolean leader, long cacheGeneration) {
+        this.jobId = jobId;
+        this.request = request;
+        this.fingerprint = fingerprint;
+        this.sharedSolve = sharedSolve;
+        this.leader = leader;
+        this.cacheGeneration = cacheGeneration;
+    }
+
+    public String getJobId() { return jobId; }
+
+    public RouteOptimizationRequest getRequest() { return request; }
+
+    public String getFingerprint() { return fingerprint; }
+
+    public CompletableFuture<SolvedResult> getSharedSolve() { return sharedSolve; }
+
+    /**
+     * true si este trabajo ejecuta la resolución; false si está adjunto a la de otro trabajo idéntico
+     */
+    public boolean isLeader() { return leader; }
+
+    public long getCacheGeneration() { return cacheGeneration; }
+
+    public OptimizationStage getCurrentStage() { return currentStage; }
+    public void setCurrentStage(OptimizationStage currentStage) { this.currentStage = currentStage; }
+
+    public RouteProcessingRequestDTO getProcessingRequest() { return processingRequest; }
+    public void setProcessingRequest(RouteProcessingRequestDTO processingRequest) { this.processingRequest = processingRequest; }
+
+    /**
+     * Matriz de distancias haversine en km, indexada según el orden de los POIs del request de procesamiento
+     */
+    public double[][] getDistanceMatrix() { return distanceMatrix; }
+    public void setDistanceMatrix(double[][] distanceMatrix) { this.distanceMatrix = distanceMatrix; }
+
+    /**
+     * true si el resultado lo generó el algoritmo de respaldo (no se guarda en caché)
+     */
+    public boolean isFallbackResult() { return fallbackResult; }
+    public void setFallbackResult(boolean fallbackResult) { this.fallbackResult = fallbackResult; }
+
+    /**
+     * true si el trabajo no llega a su plazo con el servicio de procesamiento y se resuelve localmente
+     */
+    public boolean isDowngraded() { return downgraded; }
+    public void setDowngraded(boolean downgraded) { this.downgraded = downgraded; }
+
+    public void markProcessingStarted() { this.processingStartedNanos = System.nanoTime(); }
+
+    public boolean isProcessingStarted() { return processingStartedNanos != 0; }
+
+    /**
+     * Milisegundos transcurridos desde el inicio del procesamiento
+     */
+    public long getProcessingElapsedMillis() {
+        return processingStartedNanos != 0 ? (System.nanoTime() - processingStartedNanos) / 1_000_000 : 0;
+    }
+
+    public boolean isCancelled() { return cancelled; }
+
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Trabajo " + jobId + " cancelado");
+        }
+    }
+
+    /**
+     * Marcar el hilo actual como ejecutor de una etapa para que la cancelación pueda interrumpirlo
+     */
+    public synchronized void enterStage() {
+        checkCancelled();
+        stageThread = Thread.currentThread();
+    }
+
+    public synchronized void exitStage() {
+        stageThread = null;
+        if (cancelled) {
+            // El hilo vuelve al pool sin la interrupción dirigida a este trabajo
+            Thread.interrupted();
+        }
+    }
+
+    public synchronized void setSolveSubscription(Disposable solveSubscription) {
+        if (cancelled) {
+            solveSubscription.dispose();
+        } else {
+            this.solveSubscription = solveSubscription;
+        }
+    }
+
+    /**
+     * Cancelar el trabajo: interrumpe la etapa en curso y descarta la suscripción remota
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (stageThread != null) {
+            stageThread.interrupt();
+        }
+        if (solveSubscription != null) {
+            solveSubscription.dispose();
+        }
+    }
+}
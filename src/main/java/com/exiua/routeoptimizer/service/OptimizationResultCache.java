@@ -0,0 +1,247 @@
+package com.exiua.routeoptimizer.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.model.POI;
+import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
+
+/**
+ * Caché de resultados de optimización indexada por huella canónica de la solicitud.
+ * Acotada por cantidad de entradas y bytes (LRU) y con TTL. Cada entrada recuerda los
+ * proveedores y usuarios de los que depende para invalidarse ante cambios en ellos.
+ * Un resultado grande se guarda como referencia a la fila del trabajo que lo almacenó; cuenta
+ * para el límite de bytes con su tamaño, de modo que las referencias también se expulsan por LRU,
+ * y se retira si esa fila ya no tiene el resultado.
+ */
+@Component
+public class OptimizationResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizationResultCache.class);
+
+    @Value("${optimization.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${optimization.result-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${optimization.result-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${optimization.result-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // Se incrementa en cada invalidación; un resultado calculado antes de ella no se guarda
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Buscar un resultado vigente; registra al usuario como dependiente de la entrada
+     */
+    public synchronized Optional<SolvedResult> get(String fingerprint, String userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CacheEntry entry = entries.get(fingerprint);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            remove(fingerprint);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (userId != null) {
+            entry.userIds.add(userId);
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.result);
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Guardar el resultado de una resolución iniciada en la generación indicada
+     */
+    public synchronized void put(String fingerprint, SolvedResult result, RouteOptimizationRequest request, long startedGeneration) {
+        if (!enabled || result == null) {
+            return;
+        }
+        if (startedGeneration != generation.get()) {
+            logger.debug("Resultado para huella {} descartado: hubo invalidaciones durante la resolución", fingerprint);
+            return;
+        }
+
+        long bytes = result.getSizeBytes();
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        Set<Long> providerIds = new HashSet<>();
+        if (request.getPois() != null) {
+            for (POI poi : request.getPois()) {
+                // El id del POI corresponde al id del proveedor
+                if (poi.getId() != null) {
+                    providerIds.add(poi.getId());
+                }
+                if (poi.getProviderId() != null) {
+                    providerIds.add(poi.getProviderId());
+                }
+            }
+        }
+        Set<String> userIds = new HashSet<>();
+        if (request.getUserId() != null) {
+            userIds.add(request.getUserId());
+        }
+
+        remove(fingerprint);
+        entries.put(fingerprint, new CacheEntry(result, bytes, providerIds, userIds,
+            System.nanoTime() + TimeUnit.MINUTES.toNanos(ttlMinutes)));
+        totalBytes += bytes;
+        evictOverflow();
+    }
+
+    /**
+     * Retirar las entradas que hacen referencia al resultado guardado en la fila de un trabajo
+     */
+    public synchronized int evictSource(String sourceJobId) {
+        int removed = 0;
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next().getValue();
+            if (!entry.result.isInline() && sourceJobId.equals(entry.result.getSourceJobId())) {
+                it.remove();
+                totalBytes -= entry.bytes;
+                removed++;
+            }
+        }
+        evictions.addAndGet(removed);
+        if (removed > 0) {
+            logger.info("Caché: {} entrada(s) del resultado del job {} retiradas, la fila ya no lo tiene", 
+                removed, sourceJobId);
+        }
+        return removed;
+    }
+
+    /**
+     * Invalidar rutas que visitan alguno de los proveedores indicados
+     */
+    public int invalidateProviders(Collection<Long> providerIds) {
+        return invalidate(entry -> entry.providerIds.stream().anyMatch(providerIds::contains));
+    }
+
+    /**
+     * Invalidar rutas solicitadas por el usuario indicado
+     */
+    public int invalidateUser(String userId) {
+        return invalidate(entry -> entry.userIds.contains(userId));
+    }
+
+    public int invalidateAll() {
+        return invalidate(entry -> true);
+    }
+
+    /**
+     * Expulsar entradas cuyo TTL expiró
+     */
+    @Scheduled(fixedDelayString = "${optimization.result-cache.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next().getValue();
+            if (entry.isExpired(now)) {
+                it.remove();
+                totalBytes -= entry.bytes;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), totalBytes, hits.get(), misses.get(), evictions.get(), invalidations.get());
+    }
+
+    private synchronized int invalidate(Predicate<CacheEntry> affected) {
+        generation.incrementAndGet();
+        int removed = 0;
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next().getValue();
+            if (affected.test(entry)) {
+                it.remove();
+                totalBytes -= entry.bytes;
+                removed++;
+            }
+        }
+        invalidations.addAndGet(removed);
+        return removed;
+    }
+
+    private void remove(String fingerprint) {
+        CacheEntry previous = entries.remove(fingerprint);
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || totalBytes > maxBytes)) {
+            CacheEntry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.bytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class CacheEntry {
+        private final SolvedResult result;
+        private final long bytes;
+        private final Set<Long> providerIds;
+        private final Set<String> userIds;
+        private final long expiresAtNanos;
+
+        private CacheEntry(SolvedResult result, long bytes, Set<Long> providerIds, Set<String> userIds, long expiresAtNanos) {
+            this.result = result;
+            this.bytes = bytes;
+            this.providerIds = providerIds;
+            this.userIds = userIds;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos > 0;
+        }
+    }
+
+    /**
+     * Contadores de la caché para monitoreo
+     */
+    public record CacheStats(int entries, long bytes, long hits, long misses, long evictions, long invalidations) {}
+}
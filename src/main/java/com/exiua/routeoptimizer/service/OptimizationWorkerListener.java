@@ -0,0 +1,64 @@
+package com.exiua.routeoptimizer.service;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+import com.exiua.routeoptimizer.config.RabbitMQConfig;
+import com.exiua.routeoptimizer.events.RouteOptimizationEvent;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Consumidor de route.optimization.dispatch.queue para nodos worker.
+ * Varias instancias compiten por la cola; cada mensaje se confirma cuando el trabajo
+ * termina, así el prefetch del contenedor limita los trabajos en curso por nodo.
+ * Los mensajes que no pueden iniciarse se rechazan y pasan a la cola de dead letters.
+ * Se activa con optimization.worker.enabled=true.
+ */
+@Service
+public class OptimizationWorkerListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizationWorkerListener.class);
+
+    private final EnhancedRouteOptimizationService optimizationService;
+
+    public OptimizationWorkerListener(EnhancedRouteOptimizationService optimizationService) {
+        this.optimizationService = optimizationService;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.DISPATCH_QUEUE,
+                    containerFactory = "optimizationWorkerContainerFactory",
+                    autoStartup = "${optimization.worker.enabled:false}")
+    public void handleOptimizationRequest(RouteOptimizationEvent event, Channel channel,
+                                          @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+        if (event.getEventType() != RouteOptimizationEvent.EventType.OPTIMIZATION_DISPATCHED || event.getJobId() == null) {
+            logger.warn("Mensaje inesperado en la cola de trabajos: {}", event.getEventType());
+            channel.basicNack(deliveryTag, false, false);
+            return;
+        }
+
+        String jobId = event.getJobId();
+        try {
+            optimizationService.executeDispatchedJob(jobId)
+                .whenComplete((result, throwable) -> acknowledge(channel, deliveryTag, jobId, throwable));
+        } catch (Exception e) {
+            logger.error("Error iniciando trabajo encolado {}: {}", jobId, e.getMessage());
+            channel.basicNack(deliveryTag, false, false);
+        }
+    }
+
+    private void acknowledge(Channel channel, long deliveryTag, String jobId, Throwable throwable) {
+        try {
+            // El trabajo ya quedó en estado terminal (COMPLETED o FAILED); no se reintenta
+            channel.basicAck(deliveryTag, false);
+            logger.debug("Trabajo encolado {} confirmado{}", jobId, throwable != null ? " tras fallo" : "");
+        } catch (IOException e) {
+            logger.error("Error confirmando mensaje del trabajo {}: {}", jobId, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.exiua.routeoptimizer.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -69,6 +73,31 @@ public class ProcessingPOIBuilderService {
         return pois;
     }
 
+    /**
+     * Construye POIs enriquecidos para la unión de proveedores de varias rutas,
+     * consultando cada proveedor una sola vez
+     * 
+     * @param providerIds IDs de proveedores (se ignoran duplicados)
+     * @return Mapa providerId -> POI enriquecido (sin los proveedores que fallaron)
+     */
+    public Map<Long, EnrichedProcessingPOI> buildEnrichedPOIsByProvider(Collection<Long> providerIds) {
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(providerIds));
+        log.info("Construyendo POIs enriquecidos para {} proveedores únicos", uniqueIds.size());
+        
+        Map<Long, EnrichedProviderData> enrichedDataMap = 
+            providerDataEnrichmentService.getEnrichedProviderDataBatch(uniqueIds);
+        
+        Map<Long, EnrichedProcessingPOI> pois = new HashMap<>();
+        enrichedDataMap.forEach((providerId, enrichedData) -> {
+            try {
+                pois.put(providerId, buildPOIFromEnrichedData(providerId, enrichedData));
+            } catch (Exception e) {
+                log.error("Error construyendo POI para proveedor {}: {}", providerId, e.getMessage());
+            }
+        });
+        return pois;
+    }
+
     /**
      * Construye un POI desde datos enriquecidos ya obtenidos
      * 
@@ -0,0 +1,67 @@
+package com.exiua.routeoptimizer.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.exiua.routeoptimizer.model.POI;
+import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Huella canónica (SHA-256) de una solicitud de optimización.
+ * Cubre POIs, preferencias y restricciones; excluye routeId y userId porque no
+ * influyen en la resolución. Las claves se ordenan y los POIs se ordenan por su
+ * representación canónica, de modo que el orden de envío no cambia la huella.
+ */
+@Service
+public class RequestFingerprintService {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+
+    public RequestFingerprintService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer()
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public String fingerprint(RouteOptimizationRequest request) {
+        try {
+            List<String> pois = new ArrayList<>();
+            if (request.getPois() != null) {
+                for (POI poi : request.getPois()) {
+                    pois.add(canonicalWriter.writeValueAsString(objectMapper.convertValue(poi, MAP_TYPE)));
+                }
+            }
+            pois.sort(Comparator.naturalOrder());
+
+            Map<String, Object> canonical = new LinkedHashMap<>();
+            canonical.put("pois", pois);
+            canonical.put("preferences", request.getPreferences() != null
+                ? objectMapper.convertValue(request.getPreferences(), MAP_TYPE) : null);
+            canonical.put("constraints", request.getConstraints() != null
+                ? objectMapper.convertValue(request.getConstraints(), MAP_TYPE) : null);
+
+            byte[] bytes = canonicalWriter.writeValueAsBytes(canonical);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud: " + e.getMessage(), e);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 import com.exiua.routeoptimizer.dto.JobStatusResponseDTO;
 import com.exiua.routeoptimizer.dto.JobSubmissionResponseDTO;
+import com.exiua.routeoptimizer.dto.RawJson;
 import com.exiua.routeoptimizer.dto.RouteProcessingRequestDTO;
 import com.exiua.routeoptimizer.exceptions.JobNotFoundException;
 import com.exiua.routeoptimizer.model.OptimizationJob;
@@ -39,10 +40,11 @@ public class RouteJobManagementService {
     private String baseUrl;
 
     public RouteJobManagementService(OptimizationJobRepository jobRepository, 
-                                  ObjectMapper objectMapper) {
+                                  ObjectMapper objectMapper,
+                                  WebClient webClient) {
         this.jobRepository = jobRepository;
         this.objectMapper = objectMapper;
-        this.webClient = WebClient.builder().build();
+        this.webClient = webClient;
     }
 
     @Autowired
@@ -81,13 +83,7 @@ public class RouteJobManagementService {
                 break;
             case COMPLETED:
                 response.setMessage("Route optimization completed successfully");
-                try {
-                    if (job.getResultData() != null) {
-                        response.setResult(objectMapper.readValue(job.getResultData(), Object.class));
-                    }
-                } catch (Exception e) {
-                    logger.error("Error parsing result data for job {}", jobId, e);
-                }
+                response.setResult(RawJson.of(job.getResultData()));
                 break;
             case FAILED:
                 response.setMessage("Route optimization failed");
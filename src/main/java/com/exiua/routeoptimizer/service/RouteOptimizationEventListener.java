@@ -1,5 +1,9 @@
 package com.exiua.routeoptimizer.service;
 
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -16,6 +20,12 @@ public class RouteOptimizationEventListener {
     
     private static final Logger logger = LoggerFactory.getLogger(RouteOptimizationEventListener.class);
     
+    private final OptimizationResultCache resultCache;
+    
+    public RouteOptimizationEventListener(OptimizationResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+    
     /**
      * Escuchar eventos de cambio de preferencias de usuario
      * Conexión con user_preferences_api
@@ -125,10 +135,11 @@ public class RouteOptimizationEventListener {
         // Por ejemplo: invalidar caches de rutas, actualizar algoritmos, etc.
         logger.debug("Procesando cambio de preferencias para usuario: {}", event.getUserId());
         
-        // Aquí se podría:
-        // 1. Invalidar rutas cacheadas del usuario
-        // 2. Actualizar parámetros de optimización
-        // 3. Notificar al sistema de recomendaciones
+        // Invalidar rutas cacheadas del usuario
+        if (event.getUserId() != null) {
+            int invalidated = resultCache.invalidateUser(event.getUserId());
+            logger.info("Invalidadas {} rutas en caché del usuario {}", invalidated, event.getUserId());
+        }
     }
     
     /**
@@ -138,10 +149,21 @@ public class RouteOptimizationEventListener {
         // Implementar lógica para manejar cambios en servicios
         logger.debug("Procesando cambio de servicio de proveedor: {}", event.getMessage());
         
-        // Aquí se podría:
-        // 1. Actualizar disponibilidad de POIs
-        // 2. Recalcular rutas afectadas
-        // 3. Notificar usuarios con reservas activas
+        // Invalidar rutas cacheadas que visitan a los proveedores afectados
+        Set<Long> providerIds = event.getPois() == null ? Set.of() : event.getPois().stream()
+            .map(RouteOptimizationEvent.POIData::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        
+        int invalidated;
+        if (providerIds.isEmpty()) {
+            // Sin proveedores identificados no se sabe qué rutas dependen del cambio
+            invalidated = resultCache.invalidateAll();
+        } else {
+            invalidated = resultCache.invalidateProviders(providerIds);
+        }
+        logger.info("Invalidadas {} rutas en caché por cambio de proveedores {}", invalidated, 
+            providerIds.isEmpty() ? "desconocidos" : providerIds);
     }
     
     /**
@@ -1,14 +1,24 @@
 package com.exiua.routeoptimizer.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.exiua.routeoptimizer.config.RabbitMQConfig;
 import com.exiua.routeoptimizer.events.RouteOptimizationEvent;
 import com.exiua.routeoptimizer.model.OptimizationJob;
 import com.exiua.routeoptimizer.model.RouteOptimizationRequest;
@@ -27,19 +37,16 @@ public class RouteOptimizationEventPublisher {
     @Autowired
     private AmqpTemplate rabbitTemplate;
     
+    // Espera máxima de la confirmación del broker al encolar un trabajo
+    @Value("${optimization.dispatch.confirm-timeout-ms:5000}")
+    private long dispatchConfirmTimeoutMs;
+    
     /**
      * Publicar evento de solicitud de optimización
      */
     public void publishOptimizationRequested(String jobId, String userId, RouteOptimizationRequest request) {
         try {
-            RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId, 
-                    RouteOptimizationEvent.EventType.OPTIMIZATION_REQUESTED);
-            
-            event.setRouteId(request.getRouteId());
-            event.setStatus("REQUESTED");
-            event.setMessage("Optimización de ruta solicitada");
-            event.setPois(convertPOIs(request.getPois()));
-            event.setPreferences(convertPreferences(request.getPreferences()));
+            RouteOptimizationEvent event = buildRequestedEvent(jobId, userId, request);
             
             rabbitTemplate.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE, 
                     "route.optimization.request.new", event);
@@ -54,6 +61,96 @@ public class RouteOptimizationEventPublisher {
         }
     }
     
+    /**
+     * Publicar en bloque los eventos de solicitud de un lote de trabajos (jobId -> request).
+     * Todos los mensajes se envían por un mismo canal en lugar de uno por trabajo.
+     */
+    public void publishOptimizationsRequested(Map<String, RouteOptimizationRequest> requestsByJobId) {
+        if (requestsByJobId.isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<RouteOptimizationEvent> events = requestsByJobId.entrySet().stream()
+                .map(entry -> buildRequestedEvent(entry.getKey(), entry.getValue().getUserId(), entry.getValue()))
+                .collect(Collectors.toList());
+            
+            if (rabbitTemplate instanceof RabbitOperations operations) {
+                operations.invoke(channelOperations -> {
+                    events.forEach(event -> sendRequested(channelOperations, event));
+                    return null;
+                });
+            } else {
+                events.forEach(event -> sendRequested(rabbitTemplate, event));
+            }
+            
+            logger.info("{} eventos OPTIMIZATION_REQUESTED publicados en bloque", events.size());
+            
+        } catch (Exception e) {
+            logger.error("Error publicando eventos OPTIMIZATION_REQUESTED en bloque ({} trabajos): {}", 
+                requestsByJobId.size(), e.getMessage());
+        }
+    }
+    
+    private void sendRequested(AmqpTemplate template, RouteOptimizationEvent event) {
+        template.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE, "route.optimization.request.new", event);
+        template.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE, "route.integration.activity.user",
+            buildUserActivityEvent(event.getUserId(), "ROUTE_OPTIMIZATION_REQUESTED", event.getJobId()));
+    }
+    
+    private RouteOptimizationEvent buildRequestedEvent(String jobId, String userId, RouteOptimizationRequest request) {
+        RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId, 
+                RouteOptimizationEvent.EventType.OPTIMIZATION_REQUESTED);
+        
+        event.setRouteId(request.getRouteId());
+        event.setStatus("REQUESTED");
+        event.setMessage("Optimización de ruta solicitada");
+        event.setPois(convertPOIs(request.getPois()));
+        event.setPreferences(convertPreferences(request.getPreferences()));
+        return event;
+    }
+    
+    /**
+     * Encolar un trabajo persistido para que lo ejecute un nodo worker.
+     * A diferencia del resto de eventos, un error aquí se propaga: si no se encola, el trabajo no se ejecuta.
+     * Se espera la confirmación del broker: un rechazo (cola llena), un mensaje sin cola de destino
+     * o la falta de confirmación a tiempo lanzan {@link AmqpException}.
+     */
+    public void publishOptimizationDispatched(String jobId, String userId) {
+        RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId,
+                RouteOptimizationEvent.EventType.OPTIMIZATION_DISPATCHED);
+        
+        event.setStatus("PENDING");
+        event.setMessage("Trabajo encolado para ejecución");
+        
+        if (!(rabbitTemplate instanceof RabbitOperations operations)) {
+            rabbitTemplate.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE, RabbitMQConfig.DISPATCH_ROUTING_KEY, event);
+            logger.info("Evento OPTIMIZATION_DISPATCHED publicado para job: {}", jobId);
+            return;
+        }
+        
+        CorrelationData correlation = new CorrelationData(jobId + ":" + UUID.randomUUID());
+        operations.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE, RabbitMQConfig.DISPATCH_ROUTING_KEY, event, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(dispatchConfirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrumpido esperando confirmación del encolado del job " + jobId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("Sin confirmación del broker al encolar el job " + jobId, e);
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException("El broker rechazó el encolado del job " + jobId + ": " + confirm.getReason());
+        }
+        if (correlation.getReturned() != null) {
+            throw new AmqpException("Sin cola de destino para el job " + jobId + ": " 
+                + correlation.getReturned().getReplyText());
+        }
+        
+        logger.info("Evento OPTIMIZATION_DISPATCHED publicado para job: {}", jobId);
+    }
+    
     /**
      * Publicar evento de inicio de optimización
      */
@@ -82,6 +179,14 @@ public class RouteOptimizationEventPublisher {
      * Publicar evento de progreso de optimización
      */
     public void publishOptimizationProgress(String jobId, String userId, int progress, String message) {
+        publishOptimizationProgress(jobId, userId, progress, message, null);
+    }
+    
+    /**
+     * Publicar evento de progreso con la mejor ruta parcial encontrada hasta el momento
+     */
+    public void publishOptimizationProgress(String jobId, String userId, int progress, String message,
+                                            RouteOptimizationEvent.OptimizationResultData partialResult) {
         try {
             RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId,
                     RouteOptimizationEvent.EventType.OPTIMIZATION_PROGRESS);
@@ -89,6 +194,7 @@ public class RouteOptimizationEventPublisher {
             event.setStatus("PROCESSING");
             event.setProgress(progress);
             event.setMessage(message);
+            event.setResult(partialResult);
             
             rabbitTemplate.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE,
                     "route.optimization.progress.update", event);
@@ -210,13 +316,8 @@ public class RouteOptimizationEventPublisher {
      */
     private void publishUserActivityEvent(String userId, String activity, String jobId) {
         try {
-            RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId,
-                    RouteOptimizationEvent.EventType.OPTIMIZATION_REQUESTED);
-            
-            event.setMessage(activity);
-            
             rabbitTemplate.convertAndSend(ROUTE_OPTIMIZATION_EXCHANGE,
-                    "route.integration.activity.user", event);
+                    "route.integration.activity.user", buildUserActivityEvent(userId, activity, jobId));
             
             logger.debug("Evento de actividad de usuario publicado: {} - {}", userId, activity);
             
@@ -225,6 +326,13 @@ public class RouteOptimizationEventPublisher {
         }
     }
     
+    private RouteOptimizationEvent buildUserActivityEvent(String userId, String activity, String jobId) {
+        RouteOptimizationEvent event = new RouteOptimizationEvent(jobId, userId,
+                RouteOptimizationEvent.EventType.OPTIMIZATION_REQUESTED);
+        event.setMessage(activity);
+        return event;
+    }
+    
     /**
      * Convertir POIs a formato de evento
      */
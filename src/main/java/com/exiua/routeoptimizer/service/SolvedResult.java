@@ -0,0 +1,47 @@
+package com.exiua.routeoptimizer.service;
+
+import com.exiua.routeoptimizer.model.ResultSummary;
+
+/**
+ * Resultado de una resolución listo para guardarse. Un resultado pequeño se conserva como JSON
+ * en memoria; uno grande ya está escrito en la fila de su trabajo de origen y los demás trabajos
+ * que lo comparten (adjuntos o aciertos de caché) lo copian desde ella en la base de datos.
+ */
+public final class SolvedResult {
+
+    private final String json;
+    private final String sourceJobId;
+    private final ResultSummary summary;
+
+    private SolvedResult(String json, String sourceJobId, ResultSummary summary) {
+        this.json = json;
+        this.sourceJobId = sourceJobId;
+        this.summary = summary;
+    }
+
+    public static SolvedResult inline(String json, ResultSummary summary) {
+        return new SolvedResult(json, null, summary);
+    }
+
+    public static SolvedResult stored(String sourceJobId, ResultSummary summary) {
+        return new SolvedResult(null, sourceJobId, summary);
+    }
+
+    public boolean isInline() { return json != null; }
+
+    /**
+     * JSON del resultado; null si solo está guardado en la base de datos
+     */
+    public String getJson() { return json; }
+
+    /**
+     * Trabajo en cuya fila está guardado el resultado cuando no se conserva en memoria
+     */
+    public String getSourceJobId() { return sourceJobId; }
+
+    public ResultSummary getSummary() { return summary; }
+
+    public long getSizeBytes() {
+        return summary.sizeBytes() != null ? summary.sizeBytes() : 0;
+    }
+}
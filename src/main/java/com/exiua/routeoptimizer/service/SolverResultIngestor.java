@@ -0,0 +1,240 @@
+package com.exiua.routeoptimizer.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exiua.routeoptimizer.client.RouteProcessingClient;
+import com.exiua.routeoptimizer.client.SolvePayloadCodec;
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+import com.exiua.routeoptimizer.model.ResultSummary;
+import com.exiua.routeoptimizer.repository.OptimizationJobRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Ingesta de respuestas del servicio de procesamiento sin materializarlas en memoria.
+ * La respuesta en disco se recorre una sola vez con un parser en streaming: se reescribe como
+ * JSON (descomprimida y transcodificada si llegó en formato binario) y a la vez se extraen los
+ * campos resumen. Un resultado pequeño se conserva como String; uno grande se escribe en la fila
+ * del trabajo como stream de caracteres.
+ */
+@Component
+public class SolverResultIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolverResultIngestor.class);
+
+    private final SolvePayloadCodec codec;
+    private final OptimizationJobRepository jobRepository;
+    private final RouteProcessingConfigurationProperties.Spool spool;
+    private final Path spoolDirectory;
+
+    public SolverResultIngestor(SolvePayloadCodec codec, OptimizationJobRepository jobRepository,
+                                RouteProcessingConfigurationProperties properties,
+                                RouteProcessingClient routeProcessingClient) {
+        this.codec = codec;
+        this.jobRepository = jobRepository;
+        this.spool = properties.getSpool();
+        this.spoolDirectory = routeProcessingClient.getSpoolDirectory();
+    }
+
+    /**
+     * Procesar la respuesta recibida para un trabajo; el archivo de la respuesta se borra siempre
+     */
+    public SolvedResult ingest(String jobId, RouteProcessingClient.SolverResponse response) {
+        Path json = null;
+        try {
+            json = Files.createTempFile(spoolDirectory, "result-", ".json");
+            ResultSummary summary;
+            try (InputStream raw = new BufferedInputStream(Files.newInputStream(response.file()));
+                 JsonParser parser = codec.openParser(raw, response.contentType(), response.contentEncoding());
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(json));
+                 JsonGenerator generator = codec.getJsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                if (!moveToResult(parser, response.resultField())) {
+                    throw new IOException("La respuesta no contiene el resultado");
+                }
+                summary = scan(parser, generator, 0);
+            }
+            long size = Files.size(json);
+            summary = withSize(summary, size);
+
+            if (size <= spool.getInlineMaxBytes()) {
+                return SolvedResult.inline(Files.readString(json, StandardCharsets.UTF_8), summary);
+            }
+            try (Reader reader = Files.newBufferedReader(json, StandardCharsets.UTF_8)) {
+                if (!jobRepository.storeResult(jobId, reader, summary)) {
+                    throw new IllegalStateException("El trabajo " + jobId + " ya terminó, resultado descartado");
+                }
+            }
+            logger.info("Job {}: resultado de {} bytes ({} recibidos) guardado en streaming",
+                jobId, size, response.sizeBytes());
+            return SolvedResult.stored(jobId, summary);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo procesar la respuesta del job " + jobId, e);
+        } finally {
+            deleteQuietly(response.file());
+            if (json != null) {
+                deleteQuietly(json);
+            }
+        }
+    }
+
+    /**
+     * Resultado generado localmente (respaldo): solo se extrae su resumen
+     */
+    public SolvedResult fromJson(String json) {
+        try (JsonParser parser = codec.getJsonFactory().createParser(json)) {
+            parser.nextToken();
+            return SolvedResult.inline(json, scan(parser, null, json.getBytes(StandardCharsets.UTF_8).length));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Resultado local ilegible", e);
+        }
+    }
+
+    /**
+     * Descartar una respuesta que ya no se va a procesar (p. ej. trabajo cancelado)
+     */
+    public void discard(RouteProcessingClient.SolverResponse response) {
+        deleteQuietly(response.file());
+    }
+
+    /**
+     * Borrar archivos temporales huérfanos: respuestas de hedges descartadas en carrera o
+     * ingestas interrumpidas por un reinicio
+     */
+    @Scheduled(fixedDelayString = "${route.processing.service.spool.purge-interval-ms:600000}")
+    public void purgeStaleFiles() {
+        Instant cutoff = Instant.now().minus(spool.getStaleFileMinutes(), ChronoUnit.MINUTES);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory)) {
+            for (Path file : files) {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (modified.toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Error limpiando el directorio de respuestas {}: {}", spoolDirectory, e.getMessage());
+        }
+        if (deleted > 0) {
+            logger.info("Eliminados {} archivos temporales de respuestas huérfanos", deleted);
+        }
+    }
+
+    /**
+     * Posicionar el parser al inicio del resultado: el documento completo o, si la respuesta es un
+     * evento de streaming, el valor de su campo resultField
+     */
+    private static boolean moveToResult(JsonParser parser, String resultField) throws IOException {
+        if (parser.nextToken() == null) {
+            return false;
+        }
+        if (resultField == null) {
+            return true;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (resultField.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Recorrer el valor actual copiando cada evento al generador (si hay) y extraer los campos resumen
+     * de primer nivel y la cantidad de paradas de la secuencia optimizada
+     */
+    private static ResultSummary scan(JsonParser parser, JsonGenerator generator, long sizeBytes) throws IOException {
+        Double totalDistanceKm = null;
+        Integer totalTimeMinutes = null;
+        Double optimizationScore = null;
+        String algorithm = null;
+        Integer stopCount = null;
+
+        int depth = 0;
+        // Profundidad de los elementos de la secuencia optimizada mientras se recorre; -1 fuera de ella
+        int sequenceDepth = -1;
+        String field = null;
+        JsonToken token = parser.currentToken();
+        while (token != null) {
+            if (generator != null) {
+                generator.copyCurrentEvent(parser);
+            }
+            if (token.isStructStart()) {
+                if (depth == 1 && token == JsonToken.START_ARRAY && isSequenceField(field)) {
+                    sequenceDepth = depth + 1;
+                    stopCount = 0;
+                } else if (depth == sequenceDepth) {
+                    stopCount++;
+                }
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+                if (token == JsonToken.END_ARRAY && depth == sequenceDepth - 1) {
+                    sequenceDepth = -1;
+                }
+            } else if (token == JsonToken.FIELD_NAME) {
+                if (depth == 1) {
+                    field = parser.currentName();
+                }
+            } else if (depth == sequenceDepth) {
+                stopCount++;
+            } else if (depth == 1 && token != JsonToken.VALUE_NULL && field != null) {
+                switch (field) {
+                    case "totalDistanceKm", "total_distance_km" -> totalDistanceKm = parser.getValueAsDouble();
+                    case "totalTimeMinutes", "total_time_minutes" -> totalTimeMinutes = parser.getValueAsInt();
+                    case "optimizationScore", "optimization_score" -> optimizationScore = parser.getValueAsDouble();
+                    case "algorithm", "optimization_algorithm" -> algorithm = parser.getValueAsString();
+                    default -> { }
+                }
+            }
+            if (depth == 0) {
+                break;
+            }
+            token = parser.nextToken();
+        }
+        return new ResultSummary(totalDistanceKm, totalTimeMinutes, optimizationScore, algorithm, stopCount, sizeBytes);
+    }
+
+    private static boolean isSequenceField(String field) {
+        return "optimizedSequence".equals(field) || "optimized_sequence".equals(field);
+    }
+
+    private static ResultSummary withSize(ResultSummary summary, long sizeBytes) {
+        return new ResultSummary(summary.totalDistanceKm(), summary.totalTimeMinutes(), summary.optimizationScore(),
+            summary.algorithm(), summary.stopCount(), sizeBytes);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el archivo temporal {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.exiua.routeoptimizer.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final RouteProcessingConfigurationProperties.Limiter config = new RouteProcessingConfigurationProperties.Limiter();
+
+    @Test
+    void mixedSizesDoNotCollapseTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        int initialLimit = limiter.getLimit();
+
+        // Resoluciones pequeñas rápidas y grandes 50 veces más lentas, todas a su ritmo habitual
+        for (int i = 0; i < 500; i++) {
+            int poiCount = i % 2 == 0 ? 5 : 120;
+            long latencyMs = poiCount == 5 ? 200 : 10_000;
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(latencyMs, poiCount);
+        }
+
+        assertEquals(initialLimit, limiter.getLimit());
+        assertEquals(200, limiter.getBaselineLatencyMs(4));
+        assertEquals(10_000, limiter.getBaselineLatencyMs(100));
+    }
+
+    @Test
+    void slowResponseForItsSizeReducesTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        int initialLimit = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(1_000, 60);
+        }
+
+        limiter.tryAcquire();
+        limiter.onSuccess(5_000, 60);
+
+        assertTrue(limiter.getLimit() < initialLimit);
+    }
+
+    @Test
+    void sizeBucketsArePowersOfTwoUpTo128() {
+        assertEquals(1, AdaptiveConcurrencyLimiter.sizeBucket(0));
+        assertEquals(4, AdaptiveConcurrencyLimiter.sizeBucket(7));
+        assertEquals(64, AdaptiveConcurrencyLimiter.sizeBucket(100));
+        assertEquals(128, AdaptiveConcurrencyLimiter.sizeBucket(5_000));
+    }
+}
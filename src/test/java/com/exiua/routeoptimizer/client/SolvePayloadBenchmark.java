@@ -0,0 +1,64 @@
+package com.exiua.routeoptimizer.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Compression;
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Format;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tamaño del cuerpo y tiempo de CPU de codificar y decodificar una solicitud de resolución para
+ * cada combinación de formato (JSON, Smile, CBOR) y compresión (ninguna, gzip, zstd).
+ *
+ * No forma parte del build normal: se ejecuta con
+ * {@code mvn test -Dtest=SolvePayloadBenchmark -Dbenchmark=true} (-Dbenchmark.pois=N para el tamaño).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SolvePayloadBenchmark {
+
+    private static final int POIS = Integer.getInteger("benchmark.pois", 500);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 2_000);
+
+    @Test
+    void compareFormatsAndCompressions() throws Exception {
+        SolvePayloadCodec codec = SolvePayloadCodecTest.codec(0);
+        Map<String, Object> request = SolvePayloadCodecTest.sampleRequest(POIS);
+        JsonNode expected = new ObjectMapper().valueToTree(request);
+        int jsonSize = codec.encode(request, Format.JSON, Compression.NONE).body().length;
+
+        System.out.printf(Locale.ROOT, "solicitud de %d POIs, JSON sin comprimir %d B%n", POIS, jsonSize);
+        System.out.printf(Locale.ROOT, "%-6s %-5s %9s %7s %12s %12s%n",
+            "formato", "comp", "bytes", "ratio", "encode us", "decode us");
+        for (Format format : Format.values()) {
+            for (Compression compression : Compression.values()) {
+                SolvePayloadCodec.EncodedRequest encoded = codec.encode(request, format, compression);
+                assertEquals(expected, SolvePayloadCodecTest.decode(codec, encoded));
+
+                for (int i = 0; i < ITERATIONS; i++) {
+                    SolvePayloadCodecTest.decode(codec, codec.encode(request, format, compression));
+                }
+                long started = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    codec.encode(request, format, compression);
+                }
+                double encodeMicros = (System.nanoTime() - started) / 1_000.0 / ITERATIONS;
+                started = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    SolvePayloadCodecTest.decode(codec, encoded);
+                }
+                double decodeMicros = (System.nanoTime() - started) / 1_000.0 / ITERATIONS;
+
+                System.out.printf(Locale.ROOT, "%-6s %-5s %9d %7.2f %12.1f %12.1f%n",
+                    format, compression, encoded.body().length, (double) encoded.body().length / jsonSize,
+                    encodeMicros, decodeMicros);
+            }
+        }
+    }
+}
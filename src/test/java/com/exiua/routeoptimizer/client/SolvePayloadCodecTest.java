@@ -0,0 +1,111 @@
+package com.exiua.routeoptimizer.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Compression;
+import com.exiua.routeoptimizer.client.SolvePayloadCodec.Format;
+import com.exiua.routeoptimizer.config.RouteProcessingConfigurationProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Ida y vuelta de cada combinación de formato y compresión: lo que se codifica se decodifica igual
+ */
+class SolvePayloadCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    static List<Arguments> formatsAndCompressions() {
+        List<Arguments> combinations = new ArrayList<>();
+        for (Format format : Format.values()) {
+            for (Compression compression : Compression.values()) {
+                combinations.add(Arguments.of(format, compression));
+            }
+        }
+        return combinations;
+    }
+
+    @ParameterizedTest
+    @MethodSource("formatsAndCompressions")
+    void decodesWhatItEncodes(Format format, Compression compression) throws IOException {
+        SolvePayloadCodec codec = codec(0);
+        Map<String, Object> request = sampleRequest(50);
+
+        SolvePayloadCodec.EncodedRequest encoded = codec.encode(request, format, compression);
+
+        assertEquals(format, encoded.format());
+        assertEquals(compression, encoded.compression());
+        assertEquals(objectMapper.valueToTree(request), decode(codec, encoded));
+    }
+
+    @Test
+    void skipsCompressionBelowMinimumSize() throws IOException {
+        SolvePayloadCodec codec = codec(1 << 20);
+        Map<String, Object> request = sampleRequest(2);
+
+        SolvePayloadCodec.EncodedRequest encoded = codec.encode(request, Format.SMILE, Compression.ZSTD);
+
+        assertEquals(Compression.NONE, encoded.compression());
+        assertEquals(encoded.rawSize(), encoded.body().length);
+        assertEquals(objectMapper.valueToTree(request), decode(codec, encoded));
+    }
+
+    @Test
+    void rejectsUnknownContentEncoding() {
+        SolvePayloadCodec codec = codec(0);
+        assertThrows(IOException.class, () -> codec.openParser(
+            new ByteArrayInputStream(new byte[] {'{', '}'}), Format.JSON.getMediaType(), "br"));
+    }
+
+    static SolvePayloadCodec codec(int compressionMinBytes) {
+        RouteProcessingConfigurationProperties properties = new RouteProcessingConfigurationProperties();
+        properties.getEncoding().setCompressionMinBytes(compressionMinBytes);
+        return new SolvePayloadCodec(properties, new ObjectMapper());
+    }
+
+    static JsonNode decode(SolvePayloadCodec codec, SolvePayloadCodec.EncodedRequest encoded) throws IOException {
+        try (JsonParser parser = codec.openParser(new ByteArrayInputStream(encoded.body()),
+                encoded.format().getMediaType(), encoded.compression().getContentEncoding())) {
+            return parser.readValueAsTree();
+        }
+    }
+
+    /**
+     * Solicitud con la forma de la que se envía al servicio de procesamiento
+     */
+    static Map<String, Object> sampleRequest(int poiCount) {
+        List<Map<String, Object>> pois = new ArrayList<>();
+        for (int i = 0; i < poiCount; i++) {
+            Map<String, Object> poi = new LinkedHashMap<>();
+            poi.put("id", i);
+            poi.put("name", "Punto de interés " + i);
+            poi.put("latitude", 9.93 + i * 0.0013);
+            poi.put("longitude", -84.08 - i * 0.0011);
+            poi.put("category", i % 3 == 0 ? "restaurant" : "museum");
+            poi.put("visit_duration", 30 + i % 4 * 15);
+            poi.put("opening_hours", "08:00-17:00");
+            pois.add(poi);
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("route_id", "job-" + poiCount);
+        request.put("user_id", "user-1");
+        request.put("optimize_for", "distance");
+        request.put("max_time_minutes", 480);
+        request.put("pois", pois);
+        return request;
+    }
+}
@@ -0,0 +1,103 @@
+package com.exiua.routeoptimizer.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Comparación de throughput de los dos modos de executor para las etapas de optimización:
+ * ThreadPoolTaskExecutor de plataforma configurado como en {@link ConcurrencyConfig} frente a
+ * {@link BoundedVirtualThreadExecutor}. Cada tarea se bloquea un tiempo (llamada remota,
+ * escritura JPA) y luego consume algo de CPU (matriz, manejo del resultado), como una etapa.
+ *
+ * No forma parte del build normal: se ejecuta con
+ * {@code mvn test -Dtest=ExecutorThroughputBenchmark -Dbenchmark=true} en Java 21 o superior.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ExecutorThroughputBenchmark {
+
+    private static final int TASKS = Integer.getInteger("benchmark.tasks", 2_000);
+    private static final long BLOCKING_MILLIS = Long.getLong("benchmark.blocking-ms", 20);
+    private static final int CPU_ITERATIONS = Integer.getInteger("benchmark.cpu-iterations", 20_000);
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    void platformVersusVirtualThroughput() throws Exception {
+        ThreadPoolTaskExecutor platform = platformExecutor();
+        try (BoundedVirtualThreadExecutor virtual = new BoundedVirtualThreadExecutor("bench-virtual-", 1000)) {
+            double platformRate = measure("platform", platform);
+            double virtualRate = measure("virtual", virtual);
+            System.out.printf("throughput de executors: plataforma %.0f tareas/s, virtual %.0f tareas/s (x%.2f)%n",
+                platformRate, virtualRate, virtualRate / platformRate);
+        } finally {
+            platform.shutdown();
+        }
+    }
+
+    private static ThreadPoolTaskExecutor platformExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("bench-platform-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static double measure(String name, Executor executor) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(executor);
+        }
+        double best = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long started = System.nanoTime();
+            runRound(executor);
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            best = Math.max(best, TASKS / seconds);
+            System.out.printf("%s ronda %d: %.0f tareas/s%n", name, round + 1, TASKS / seconds);
+        }
+        return best;
+    }
+
+    private static void runRound(Executor executor) throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                stage();
+                completed.incrementAndGet();
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).get(5, TimeUnit.MINUTES);
+        assertEquals(TASKS, completed.get());
+    }
+
+    private static void stage() {
+        try {
+            Thread.sleep(BLOCKING_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        double sink = 0;
+        for (int i = 1; i <= CPU_ITERATIONS; i++) {
+            sink += Math.sqrt(i);
+        }
+        if (sink < 0) {
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.exiua.routeoptimizer.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RawJsonTest {
+
+    private static final String RESULT = "{\"route\":[\"Café Británico\",\"Teatro Nacional\"],\"distance_km\":4.2}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesStoredResultVerbatimWithByteGenerator() throws Exception {
+        JobStatusResponseDTO response = new JobStatusResponseDTO();
+        response.setResult(RawJson.of(RESULT));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        objectMapper.writeValue(out, response);
+        String json = out.toString(StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.readTree(RESULT), objectMapper.readTree(json).get("result"));
+    }
+
+    @Test
+    void writesStoredResultVerbatimWithCharacterGenerator() throws Exception {
+        JobStatusResponseDTO response = new JobStatusResponseDTO();
+        response.setResult(RawJson.of(RESULT));
+
+        StringWriter out = new StringWriter();
+        objectMapper.writeValue(out, response);
+
+        assertEquals(objectMapper.readTree(RESULT), objectMapper.readTree(out.toString()).get("result"));
+    }
+
+    @Test
+    void nullResultStaysNull() {
+        assertNull(RawJson.of(null));
+    }
+}
@@ -0,0 +1,90 @@
+package com.exiua.routeoptimizer.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Allocation and time per status response when embedding a stored result: the previous path
+ * (readValue into an Object tree, then serialize the tree) against {@link RawJson}.
+ * Allocation is read from the HotSpot per-thread allocation counter.
+ *
+ * Not part of the regular build: run with
+ * {@code mvn test -Dtest=ResultEmbeddingBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ResultEmbeddingBenchmark {
+
+    private static final int STOPS = Integer.getInteger("benchmark.stops", 200);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20_000);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parsedTreeVersusRawJson() throws Exception {
+        String result = sampleResult(STOPS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(result.length() * 2);
+
+        Measurement tree = measure(() -> {
+            JobStatusResponseDTO response = new JobStatusResponseDTO();
+            response.setResult(objectMapper.readValue(result, Object.class));
+            out.reset();
+            objectMapper.writeValue(out, response);
+        });
+        String treeOutput = out.toString(StandardCharsets.UTF_8);
+
+        Measurement raw = measure(() -> {
+            JobStatusResponseDTO response = new JobStatusResponseDTO();
+            response.setResult(RawJson.of(result));
+            out.reset();
+            objectMapper.writeValue(out, response);
+        });
+
+        assertEquals(objectMapper.readTree(treeOutput), objectMapper.readTree(out.toByteArray()));
+        System.out.printf(Locale.ROOT, "result of %d chars: tree %d B/op %.1f us/op, raw %d B/op %.1f us/op%n",
+            result.length(), tree.bytesPerOp(), tree.microsPerOp(), raw.bytesPerOp(), raw.microsPerOp());
+    }
+
+    private static Measurement measure(Operation operation) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Measurement(allocated / ITERATIONS, elapsed / 1_000.0 / ITERATIONS);
+    }
+
+    private static String sampleResult(int stops) {
+        StringBuilder json = new StringBuilder("{\"algorithm\":\"NearestNeighbor-2opt-OrOpt\",\"optimized_sequence\":[");
+        for (int i = 0; i < stops; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                "{\"poi_id\":%d,\"name\":\"Parada %d\",\"latitude\":%.6f,\"longitude\":%.6f,\"arrival_time\":\"09:%02d\"}",
+                i, i, 9.93 + i * 0.001, -84.08 - i * 0.001, i % 60));
+        }
+        return json.append("],\"total_distance_km\":42.5,\"total_time_minutes\":315}").toString();
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private record Measurement(long bytesPerOp, double microsPerOp) {}
+}